@@ -2,6 +2,12 @@ package com.example.bay;
 
 import android.app.Application;
 import android.util.Log;
+import com.example.bay.repository.PostCardCommunityRepository;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.ReviewRepository;
+import com.example.bay.repository.ShoppingItemStore;
+import com.example.bay.service.ForegroundChatListener;
+import com.example.bay.util.RetrofitClient;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.database.FirebaseDatabase;
 
@@ -14,6 +20,13 @@ public class MyApplication extends Application {
         Log.d(TAG, "MyApplication onCreate");
 
         initializeFirebase();
+        RetrofitClient.init(this);
+        ShoppingItemStore.init(this);
+        ForegroundChatListener.register(this);
+        PostCardCommunityRepository.seedCreatedAtIfNeeded();
+        new PostSummaryRepository().backfillIfNeeded();
+        new ReviewRepository().backfillReviewIndexIfNeeded();
+        new ReviewRepository().backfillReviewPagingKeysIfNeeded();
     }
 
     private void initializeFirebase() {
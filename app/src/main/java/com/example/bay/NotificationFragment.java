@@ -11,6 +11,7 @@ import androidx.fragment.app.Fragment;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.bay.HomeActivity;
 import com.example.bay.adapter.NotificationAdapter;
@@ -25,6 +26,8 @@ import java.util.List;
 
 public class NotificationFragment extends Fragment {
 
+    private static final int LOAD_MORE_THRESHOLD = 3;
+
     private FragmentNotificationBinding binding;
     private HomeActivity homeActivity;
     private NotificationAdapter notificationAdapter;
@@ -77,6 +80,17 @@ public class NotificationFragment extends Fragment {
         LinearLayoutManager layoutManager = new LinearLayoutManager(requireContext());
         binding.recyclerView.setLayoutManager(layoutManager);
         binding.recyclerView.setAdapter(notificationAdapter);
+
+        binding.recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= notificationAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    notificationViewModel.loadMoreNotifications();
+                }
+            }
+        });
     }
 
     private void setupObservers() {
@@ -226,8 +240,6 @@ public class NotificationFragment extends Fragment {
     public void onResume() {
         super.onResume();
         homeActivity.showBottomNavigation();
-        // Refresh notifications when fragment is resumed
-        notificationViewModel.loadNotifications();
     }
 
     @Override
@@ -16,6 +16,7 @@ import com.bumptech.glide.request.RequestOptions;
 import com.example.bay.R;
 import com.example.bay.model.Chat;
 import com.example.bay.model.User;
+import com.example.bay.repository.UserProfileCache;
 import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 
@@ -32,7 +33,7 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
     private List<Chat> chatList;
     private String currentUserId;
     private OnChatClickListener listener;
-    private UserRepository userRepository;
+    private final UserProfileCache userProfileCache;
     private Context context;
 
     public ChatAdapter(List<Chat> chatList, String currentUserId,
@@ -40,7 +41,7 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
         this.chatList = chatList != null ? new ArrayList<>(chatList) : new ArrayList<>();
         this.currentUserId = currentUserId;
         this.listener = listener;
-        this.userRepository = new UserRepository();
+        this.userProfileCache = UserProfileCache.getInstance();
         this.context = context;
     }
 
@@ -57,52 +58,51 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
         Chat chat = chatList.get(position);
         String partnerId = chat.getChatPartnerId(currentUserId);
 
-        userRepository.getUserById(partnerId, new UserRepository.UserCallback<User>() {
-            @Override
-            public void onSuccess(User user) {
-                holder.tvUserName.setText(user.getFirst_name() + " " + user.getLast_name());
-
-                if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-                    Glide.with(context)
-                            .load(user.getProfileImageUrl())
-                            .apply(RequestOptions.bitmapTransform(new CircleCrop()))
-                            .placeholder(R.drawable.img)
-                            .error(R.drawable.img)
-                            .into(holder.imgProfile);
-                } else {
-                    holder.imgProfile.setImageResource(R.drawable.img);
-                }
-
-                if (chat.getLastMessage() != null) {
-                    if ("image".equals(chat.getLastMessageType())) {
-                        holder.tvLastMessage.setText("Image");
-                        holder.imgAttachment.setVisibility(View.VISIBLE);
-                    } else {
-                        holder.tvLastMessage.setText(chat.getLastMessage());
-                        holder.imgAttachment.setVisibility(View.GONE);
-                    }
-                }
-
-                if (chat.getLastMessageTime() > 0) {
-                    holder.tvTime.setText(TimeUtils.getChatTime(chat.getLastMessageTime()));
+        if (chat.getPartnerName() != null) {
+            bindPartner(holder, chat.getPartnerName(), chat.getPartnerProfileImageUrl());
+        } else {
+            // Entry written before partner snapshots existed
+            holder.itemView.setTag(partnerId);
+            userProfileCache.getUser(partnerId, new UserRepository.UserCallback<User>() {
+                @Override
+                public void onSuccess(User user) {
+                    if (!partnerId.equals(holder.itemView.getTag())) return;
+                    bindPartner(holder, user.getFirst_name() + " " + user.getLast_name(), user.getProfileImageUrl());
                 }
 
-                if (chat.getUnreadCount() > 0 &&
-                        !currentUserId.equals(chat.getLastMessageSenderId())) {
-                    holder.tvUnreadCount.setText(String.valueOf(chat.getUnreadCount()));
-                    holder.tvUnreadCount.setVisibility(View.VISIBLE);
-                } else {
-                    holder.tvUnreadCount.setVisibility(View.GONE);
+                @Override
+                public void onError(String errorMsg) {
+                    if (!partnerId.equals(holder.itemView.getTag())) return;
+                    holder.tvUserName.setText("Unknown User");
+                    holder.imgProfile.setImageResource(R.drawable.img);
                 }
+            });
+        }
 
+        if (chat.getLastMessage() != null || "image".equals(chat.getLastMessageType())) {
+            if ("image".equals(chat.getLastMessageType())) {
+                holder.tvLastMessage.setText("Image");
+                holder.imgAttachment.setVisibility(View.VISIBLE);
+            } else {
+                holder.tvLastMessage.setText(chat.getLastMessage());
+                holder.imgAttachment.setVisibility(View.GONE);
             }
+        } else {
+            holder.tvLastMessage.setText("");
+            holder.imgAttachment.setVisibility(View.GONE);
+        }
 
-            @Override
-            public void onError(String errorMsg) {
-                holder.tvUserName.setText("Unknown User");
-                holder.imgProfile.setImageResource(R.drawable.img);
-            }
-        });
+        if (chat.getLastMessageTime() > 0) {
+            holder.tvTime.setText(TimeUtils.getChatTime(chat.getLastMessageTime()));
+        }
+
+        if (chat.getUnreadCount() > 0 &&
+                !currentUserId.equals(chat.getLastMessageSenderId())) {
+            holder.tvUnreadCount.setText(String.valueOf(chat.getUnreadCount()));
+            holder.tvUnreadCount.setVisibility(View.VISIBLE);
+        } else {
+            holder.tvUnreadCount.setVisibility(View.GONE);
+        }
 
         holder.itemView.setOnClickListener(v -> {
             if (listener != null) {
@@ -117,6 +117,21 @@ public class ChatAdapter extends RecyclerView.Adapter<ChatAdapter.ViewHolder> {
         });
     }
 
+    private void bindPartner(ViewHolder holder, String name, String profileImageUrl) {
+        holder.tvUserName.setText(name);
+
+        if (profileImageUrl != null && !profileImageUrl.isEmpty()) {
+            Glide.with(context)
+                    .load(profileImageUrl)
+                    .apply(RequestOptions.bitmapTransform(new CircleCrop()))
+                    .placeholder(R.drawable.img)
+                    .error(R.drawable.img)
+                    .into(holder.imgProfile);
+        } else {
+            holder.imgProfile.setImageResource(R.drawable.img);
+        }
+    }
+
     @Override
     public int getItemCount() {
         return chatList.size();
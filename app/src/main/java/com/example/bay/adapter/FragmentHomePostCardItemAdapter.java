@@ -25,6 +25,9 @@ import com.example.bay.R;
 import com.example.bay.fragment.PostDetailFragment;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -42,6 +45,7 @@ public class FragmentHomePostCardItemAdapter extends RecyclerView.Adapter<Fragme
     private final Context context;
     private List<PostCardItem> postCardItemList = new ArrayList<>();
     private final FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private final PostSummaryRepository postSummaryRepository = new PostSummaryRepository();
 
     public FragmentHomePostCardItemAdapter(Context context) {
         this.context = context;
@@ -68,63 +72,52 @@ public class FragmentHomePostCardItemAdapter extends RecyclerView.Adapter<Fragme
                 ? TimeUtils.formatTimeAgo(item.getTimestamp())
                 : "មិនទាន់មាន");
 
-        long likeCount = item.getLikedBy() != null ? item.getLikedBy().size() : 0;
-        long saveCount = item.getSavedBy() != null ? item.getSavedBy().size() : 0;
-        long commentCount = item.getComments() != null ? item.getComments().size() : 0;
+        long likeCount = item.getLikeTotal();
+        long saveCount = item.getSaveTotal();
+        long commentCount = item.getCommentTotal();
 
         holder.tvLike.setText(String.valueOf(likeCount));
         holder.tvSave.setText(String.valueOf(saveCount));
         holder.tvComment.setText(String.valueOf(commentCount));
 
         if (item.getUserId() != null && !item.getUserId().isEmpty()) {
-            DatabaseReference userRef = FirebaseDatabase.getInstance()
-                    .getReference("users")
-                    .child(item.getUserId());
-
-            userRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            UserProfileCache.getInstance().getUser(item.getUserId(), new UserRepository.UserCallback<User>() {
                 @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        String fullName = (user.getFirst_name() != null ? user.getFirst_name() : "")
-                                + " " +
-                                (user.getLast_name() != null ? user.getLast_name() : "");
-                        fullName = fullName.trim().isEmpty() ? "អ្នកប្រើប្រាស់" : fullName.trim();
-                        holder.tvUsername.setText(fullName);
-
-                        if (user.isUserVerified()) {
-                            holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
-                                    null,
-                                    null,
-                                    ContextCompat.getDrawable(context, R.drawable.ico_user_verified),
-                                    null
-                            );
-                        } else {
-                            holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
-                                    null,
-                                    null,
-                                    null,
-                                    null
-                            );
-                        }
-
-                        Glide.with(context)
-                                .load(user.getProfileImageUrl())
-                                .placeholder(R.drawable.img)
-                                .into(holder.btnProfile);
-
+                public void onSuccess(User user) {
+                    String fullName = (user.getFirst_name() != null ? user.getFirst_name() : "")
+                            + " " +
+                            (user.getLast_name() != null ? user.getLast_name() : "");
+                    fullName = fullName.trim().isEmpty() ? "អ្នកប្រើប្រាស់" : fullName.trim();
+                    holder.tvUsername.setText(fullName);
+
+                    if (user.isUserVerified()) {
+                        holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
+                                null,
+                                null,
+                                ContextCompat.getDrawable(context, R.drawable.ico_user_verified),
+                                null
+                        );
                     } else {
-                        // Fallback if user is null
-                        holder.tvUsername.setText("អ្នកប្រើប្រាស់");
-                        holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
-                        holder.btnProfile.setImageResource(R.drawable.img);
+                        holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
+                                null,
+                                null,
+                                null,
+                                null
+                        );
                     }
 
+                    Glide.with(context)
+                            .load(user.getProfileImageUrl())
+                            .placeholder(R.drawable.img)
+                            .into(holder.btnProfile);
                 }
 
                 @Override
-                public void onCancelled(@NonNull DatabaseError error) {
+                public void onError(String errorMsg) {
+                    // Fallback if the user is missing or could not be loaded
                     holder.tvUsername.setText("អ្នកប្រើប្រាស់");
+                    holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
+                    holder.btnProfile.setImageResource(R.drawable.img);
                 }
             });
         } else {
@@ -137,6 +130,15 @@ public class FragmentHomePostCardItemAdapter extends RecyclerView.Adapter<Fragme
         updateLikeUi(holder, uid != null && item.isLikedByUser(uid));
         updateSaveUi(holder, uid != null && item.isSavedByUser(uid));
 
+        if (uid != null && !item.isViewerStateLoaded()) {
+            postSummaryRepository.loadViewerState(item, uid, loaded -> {
+                int pos = holder.getAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION || pos >= postCardItemList.size() || postCardItemList.get(pos) != loaded) return;
+                updateLikeUi(holder, loaded.isLikedByUser(uid));
+                updateSaveUi(holder, loaded.isSavedByUser(uid));
+            });
+        }
+
         setupPhotoGrid(holder, item);
 
         View.OnClickListener openDetail = v -> {
@@ -230,15 +232,9 @@ public class FragmentHomePostCardItemAdapter extends RecyclerView.Adapter<Fragme
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean liked = snapshot.exists();
-                if (liked) {
-                    ref.removeValue();
-                    if (item.getLikedBy() != null) item.getLikedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (item.getLikedBy() == null) item.setLikedBy(new java.util.HashMap<>());
-                    item.getLikedBy().put(uid, true);
-                }
-                holder.tvLike.setText(String.valueOf(item.getLikedBy() != null ? item.getLikedBy().size() : 0));
+                postSummaryRepository.setLiked(item.getItemId(), uid, !liked);
+                item.applyLike(uid, !liked);
+                holder.tvLike.setText(String.valueOf(item.getLikeTotal()));
                 updateLikeUi(holder, !liked);
             }
 
@@ -265,15 +261,9 @@ public class FragmentHomePostCardItemAdapter extends RecyclerView.Adapter<Fragme
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean saved = snapshot.exists();
-                if (saved) {
-                    ref.removeValue();
-                    if (item.getSavedBy() != null) item.getSavedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (item.getSavedBy() == null) item.setSavedBy(new java.util.HashMap<>());
-                    item.getSavedBy().put(uid, true);
-                }
-                holder.tvSave.setText(String.valueOf(item.getSavedBy() != null ? item.getSavedBy().size() : 0));
+                postSummaryRepository.setSaved(item.getItemId(), uid, !saved);
+                item.applySave(uid, !saved);
+                holder.tvSave.setText(String.valueOf(item.getSaveTotal()));
                 updateSaveUi(holder, !saved);
             }
 
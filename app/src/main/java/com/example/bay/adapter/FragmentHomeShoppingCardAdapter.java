@@ -13,17 +13,13 @@ import com.example.bay.R;
 import com.example.bay.databinding.ItemCardShopHomeBinding;
 import com.example.bay.model.ShoppingItem;
 import com.example.bay.model.User;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
 
 import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 public class FragmentHomeShoppingCardAdapter
         extends RecyclerView.Adapter<FragmentHomeShoppingCardAdapter.VH> {
@@ -39,8 +35,7 @@ public class FragmentHomeShoppingCardAdapter
     }
 
     private final List<ShoppingItem> items = new ArrayList<>();
-    private final Map<String, User> userCache = new HashMap<>();
-    private final Map<String, Boolean> userLoading = new HashMap<>();
+    private final UserProfileCache userProfileCache = UserProfileCache.getInstance();
 
     // ======================================================
 
@@ -77,7 +72,7 @@ public class FragmentHomeShoppingCardAdapter
 
         // ---------- SELLER ----------
         String userId = item.getUserId();
-        User user = userCache.get(userId);
+        User user = userProfileCache.peek(userId);
 
         if (user != null) {
             bindUser(h, user);
@@ -119,32 +114,17 @@ public class FragmentHomeShoppingCardAdapter
     private void fetchUserIfNeeded(String userId) {
         if (TextUtils.isEmpty(userId)) return;
 
-        Boolean loading = userLoading.get(userId);
-        if (loading != null && loading) return;
+        // The shared cache dedupes concurrent lookups and remembers missing users
+        userProfileCache.getUser(userId, new UserRepository.UserCallback<User>() {
+            @Override
+            public void onSuccess(User user) {
+                notifyDataSetChanged(); // ✅ SAFE
+            }
 
-        userLoading.put(userId, true);
-
-        FirebaseDatabase.getInstance()
-                .getReference("users")
-                .child(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        userLoading.put(userId, false);
-
-                        User user = snapshot.getValue(User.class);
-                        if (user != null) {
-                            userCache.put(userId, user);
-                            notifyDataSetChanged(); // ✅ SAFE
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        userLoading.put(userId, false);
-                    }
-                });
+            @Override
+            public void onError(String errorMsg) {
+            }
+        });
     }
 
     // ======================================================
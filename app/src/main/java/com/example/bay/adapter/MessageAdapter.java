@@ -8,6 +8,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
@@ -17,35 +19,74 @@ import com.example.bay.R;
 import com.example.bay.model.Message;
 import com.example.bay.util.TimeUtils;
 
-import java.util.List;
+import java.util.Objects;
 
-public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+// Lists are diffed off the main thread by ListAdapter, so a new message only binds its own row
+public class MessageAdapter extends ListAdapter<Message, RecyclerView.ViewHolder> {
 
     private static final int VIEW_TYPE_MY_TEXT = 1;
     private static final int VIEW_TYPE_OTHER_TEXT = 2;
     private static final int VIEW_TYPE_MY_IMAGE = 3;
     private static final int VIEW_TYPE_OTHER_IMAGE = 4;
 
-    private List<Message> messageList;
     private String currentUserId;
     private Context context;
     private OnImageClickListener imageClickListener;
+    // Other participant's read watermark; my messages at or before it have been seen
+    private long partnerLastRead;
+
+    private static final DiffUtil.ItemCallback<Message> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Message>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+                    return Objects.equals(oldItem.getMessageId(), newItem.getMessageId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull Message oldItem, @NonNull Message newItem) {
+                    return oldItem.getTimestamp() == newItem.getTimestamp()
+                            && Objects.equals(oldItem.getType(), newItem.getType())
+                            && Objects.equals(oldItem.getText(), newItem.getText())
+                            && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                            && Objects.equals(oldItem.getThumbnailUrl(), newItem.getThumbnailUrl());
+                }
+            };
 
     public interface OnImageClickListener {
         void onImageClick(Message message, ImageView imageView);
     }
 
-    public MessageAdapter(List<Message> messageList, String currentUserId,
-                          Context context, OnImageClickListener listener) {
-        this.messageList = messageList;
+    public MessageAdapter(String currentUserId, Context context, OnImageClickListener listener) {
+        super(DIFF_CALLBACK);
         this.currentUserId = currentUserId;
         this.context = context;
         this.imageClickListener = listener;
     }
 
+    // Rebinds only my messages whose read state flips
+    public void setPartnerLastRead(long lastRead) {
+        long previous = partnerLastRead;
+        partnerLastRead = lastRead;
+
+        long low = Math.min(previous, lastRead);
+        long high = Math.max(previous, lastRead);
+        for (int i = 0; i < getItemCount(); i++) {
+            Message message = getItem(i);
+            if (currentUserId.equals(message.getSenderId())
+                    && message.getTimestamp() > low && message.getTimestamp() <= high) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    private String myMessageTime(Message message) {
+        String time = TimeUtils.formatTime(message.getTimestamp());
+        return message.getTimestamp() <= partnerLastRead ? time + " ✓✓" : time + " ✓";
+    }
+
     @Override
     public int getItemViewType(int position) {
-        Message message = messageList.get(position);
+        Message message = getItem(position);
 
         if (message.getSenderId().equals(currentUserId)) {
             return "image".equals(message.getType()) ? VIEW_TYPE_MY_IMAGE : VIEW_TYPE_MY_TEXT;
@@ -81,7 +122,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
-        Message message = messageList.get(position);
+        Message message = getItem(position);
 
         switch (holder.getItemViewType()) {
             case VIEW_TYPE_MY_TEXT:
@@ -99,11 +140,6 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
         }
     }
 
-    @Override
-    public int getItemCount() {
-        return messageList.size();
-    }
-
     class MyTextViewHolder extends RecyclerView.ViewHolder {
         TextView tvMessage;
         TextView tvTime;
@@ -116,7 +152,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
 
         void bind(Message message) {
             tvMessage.setText(message.getText());
-            tvTime.setText(TimeUtils.formatTime(message.getTimestamp()));
+            tvTime.setText(myMessageTime(message));
         }
     }
 
@@ -165,7 +201,7 @@ public class MessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder
                 imgMessage.setImageResource(R.drawable.img);
             }
 
-            tvTime.setText(TimeUtils.formatTime(message.getTimestamp()));
+            tvTime.setText(myMessageTime(message));
 
             imgMessage.setOnClickListener(v -> {
                 if (imageClickListener != null && message.getImageUrl() != null && !message.getImageUrl().isEmpty()) {
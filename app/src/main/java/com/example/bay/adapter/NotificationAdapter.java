@@ -17,7 +17,6 @@ import com.bumptech.glide.load.resource.bitmap.CircleCrop;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.bay.R;
 import com.example.bay.model.Notification;
-import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 
 import java.text.SimpleDateFormat;
@@ -36,7 +35,6 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
 
     private List<Notification> notificationList;
     private OnNotificationClickListener listener;
-    private UserRepository userRepository;
     private Context context;
 
     public NotificationAdapter(List<Notification> notificationList,
@@ -44,7 +42,6 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
                                Context context) {
         this.notificationList = notificationList != null ? new ArrayList<>(notificationList) : new ArrayList<>();
         this.listener = listener;
-        this.userRepository = new UserRepository();
         this.context = context;
     }
 
@@ -81,31 +78,21 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
             }
         }
 
-        // Load sender profile image
-        userRepository.getUserById(notification.getSenderId(), new UserRepository.UserCallback<com.example.bay.model.User>() {
-            @Override
-            public void onSuccess(com.example.bay.model.User user) {
-                if (holder.imgProfile != null) {
-                    if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-                        Glide.with(context)
-                                .load(user.getProfileImageUrl())
-                                .apply(RequestOptions.bitmapTransform(new CircleCrop()))
-                                .placeholder(R.drawable.img)
-                                .error(R.drawable.img)
-                                .into(holder.imgProfile);
-                    } else {
-                        holder.imgProfile.setImageResource(R.drawable.img);
-                    }
-                }
+        // Sender avatar comes from the snapshot on the notification; no per-row lookup
+        if (holder.imgProfile != null) {
+            String avatarUrl = notification.getSenderProfileImageUrl();
+            if (avatarUrl != null && !avatarUrl.isEmpty()) {
+                Glide.with(context)
+                        .load(avatarUrl)
+                        .apply(RequestOptions.bitmapTransform(new CircleCrop()))
+                        .placeholder(R.drawable.img)
+                        .error(R.drawable.img)
+                        .into(holder.imgProfile);
+            } else {
+                Glide.with(context).clear(holder.imgProfile);
+                holder.imgProfile.setImageResource(R.drawable.img);
             }
-
-            @Override
-            public void onError(String errorMsg) {
-                if (holder.imgProfile != null) {
-                    holder.imgProfile.setImageResource(R.drawable.img);
-                }
-            }
-        });
+        }
 
         // Set notification type icon - add null check
         if (holder.imgType != null) {
@@ -14,7 +14,6 @@ import com.bumptech.glide.load.resource.bitmap.CircleCrop;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.bay.R;
 import com.example.bay.model.User;
-import com.example.bay.model.Message;
 import com.google.android.material.imageview.ShapeableImageView;
 
 import java.util.ArrayList;
@@ -30,17 +29,17 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
 
     private List<User> filteredUserList;
     private List<User> originalUserList;
-    private List<Message> messageList;
+    private Set<String> chatPartnerIds;
     private OnUserClickListener listener;
     private Context context;
     private String currentUserId;
     private User currentUser;
 
-    public OnlineUserAdapter(List<User> userList, List<Message> messageList,
+    public OnlineUserAdapter(List<User> userList, Set<String> chatPartnerIds,
                              String currentUserId, User currentUser,
                              OnUserClickListener listener, Context context) {
         this.originalUserList = userList != null ? new ArrayList<>(userList) : new ArrayList<>();
-        this.messageList = messageList != null ? messageList : new ArrayList<>();
+        this.chatPartnerIds = chatPartnerIds != null ? chatPartnerIds : new HashSet<>();
         this.currentUserId = currentUserId;
         this.currentUser = currentUser;
         this.listener = listener;
@@ -57,9 +56,6 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
             filteredUserList.add(currentUser);
         }
 
-        // Get all users who have chat history with current user
-        Set<String> usersWithChatHistory = getUsersWithChatHistory();
-
         // Add online users who have chat history
         for (User user : originalUserList) {
             // Skip current user (already added)
@@ -68,34 +64,12 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
             }
 
             // Check if user is online AND has chat history with current user
-            if (user.isOnline() && usersWithChatHistory.contains(user.getUserId())) {
+            if (user.isOnline() && chatPartnerIds.contains(user.getUserId())) {
                 filteredUserList.add(user);
             }
         }
     }
 
-    // Method to get user IDs who have chat history with current user
-    private Set<String> getUsersWithChatHistory() {
-        Set<String> userIds = new HashSet<>();
-
-        if (messageList == null || currentUserId == null) {
-            return userIds;
-        }
-
-        for (Message message : messageList) {
-            String senderId = message.getSenderId();
-            String receiverId = message.getReceiverId();
-
-            if (currentUserId.equals(senderId) && receiverId != null) {
-                userIds.add(receiverId);
-            } else if (currentUserId.equals(receiverId) && senderId != null) {
-                userIds.add(senderId);
-            }
-        }
-
-        return userIds;
-    }
-
     @NonNull
     @Override
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -186,9 +160,9 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
     }
 
     // Update method to refresh data
-    public void updateData(List<User> userList, List<Message> messages, User currentUser) {
+    public void updateData(List<User> userList, Set<String> partnerIds, User currentUser) {
         this.originalUserList = userList != null ? new ArrayList<>(userList) : new ArrayList<>();
-        this.messageList = messages != null ? messages : new ArrayList<>();
+        this.chatPartnerIds = partnerIds != null ? partnerIds : new HashSet<>();
         this.currentUser = currentUser;
         filterAndSortUsers();
         notifyDataSetChanged();
@@ -201,9 +175,9 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
         notifyDataSetChanged();
     }
 
-    // Update messages only
-    public void updateMessageList(List<Message> messages) {
-        this.messageList = messages != null ? messages : new ArrayList<>();
+    // Update chat partners only (ids from chat-partners/{currentUserId})
+    public void updateChatPartners(Set<String> partnerIds) {
+        this.chatPartnerIds = partnerIds != null ? partnerIds : new HashSet<>();
         filterAndSortUsers();
         notifyDataSetChanged();
     }
@@ -240,7 +214,7 @@ public class OnlineUserAdapter extends RecyclerView.Adapter<OnlineUserAdapter.Vi
     public void clear() {
         filteredUserList.clear();
         originalUserList.clear();
-        messageList.clear();
+        chatPartnerIds = new HashSet<>();
         notifyDataSetChanged();
     }
 
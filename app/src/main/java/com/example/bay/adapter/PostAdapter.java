@@ -27,6 +27,9 @@ import com.example.bay.fragment.CommunityAccountFragment;
 import com.example.bay.fragment.PostDetailFragment;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -45,6 +48,7 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
     private List<PostCardItem> posts = new ArrayList<>();
     private OnItemClickListener listener;
     private final FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private final PostSummaryRepository postSummaryRepository = new PostSummaryRepository();
     private String currentUserId;
 
     public interface OnItemClickListener {
@@ -110,9 +114,9 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
                 : "មិនទាន់មាន");
 
         // Calculate counts
-        int likeCount = post.getLikedBy() != null ? post.getLikedBy().size() : 0;
-        int commentCount = post.getComments() != null ? post.getComments().size() : 0;
-        int saveCount = post.getSavedBy() != null ? post.getSavedBy().size() : 0;
+        int likeCount = (int) post.getLikeTotal();
+        int commentCount = (int) post.getCommentTotal();
+        int saveCount = (int) post.getSaveTotal();
 
         holder.text_like_count.setText(String.valueOf(likeCount));
         holder.text_comment_count.setText(String.valueOf(commentCount));
@@ -126,6 +130,15 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
         boolean isSaved = currentUserId != null && post.isSavedByUser(currentUserId);
         updateSaveUi(holder, isSaved);
 
+        if (currentUserId != null && !post.isViewerStateLoaded()) {
+            postSummaryRepository.loadViewerState(post, currentUserId, loaded -> {
+                int pos = holder.getAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION || pos >= posts.size() || posts.get(pos) != loaded) return;
+                updateLikeUi(holder, loaded.isLikedByUser(currentUserId));
+                updateSaveUi(holder, loaded.isSavedByUser(currentUserId));
+            });
+        }
+
         // Fetch and display user info
         if (post.getUserId() != null && !post.getUserId().isEmpty()) {
             fetchUserInfo(post.getUserId(), holder, post);
@@ -208,42 +221,33 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
     }
 
     private void fetchUserInfo(String userId, ViewHolder holder, PostCardItem post) {
-        FirebaseDatabase.getInstance()
-                .getReference("users")
-                .child(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        User user = snapshot.getValue(User.class);
-                        if (user == null) {
-                            holder.tvUsername.setText("User");
-                            holder.btnProfile.setImageResource(R.drawable.img);
-                            return;
-                        }
-
-                        String name = ((user.getFirst_name() != null ? user.getFirst_name() : "") + " " +
-                                (user.getLast_name() != null ? user.getLast_name() : "")).trim();
-                        holder.tvUsername.setText(name.isEmpty() ? "User" : name);
-
-                        // Store user info in post for search functionality
-                        post.setUser(user);
-
-                        if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-                            Glide.with(context)
-                                    .load(user.getProfileImageUrl())
-                                    .placeholder(R.drawable.img)
-                                    .circleCrop()
-                                    .into(holder.btnProfile);
-                        } else {
-                            holder.btnProfile.setImageResource(R.drawable.img);
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        holder.tvUsername.setText("User");
-                    }
-                });
+        UserProfileCache.getInstance().getUser(userId, new UserRepository.UserCallback<User>() {
+            @Override
+            public void onSuccess(User user) {
+                String name = ((user.getFirst_name() != null ? user.getFirst_name() : "") + " " +
+                        (user.getLast_name() != null ? user.getLast_name() : "")).trim();
+                holder.tvUsername.setText(name.isEmpty() ? "User" : name);
+
+                // Store user info in post for search functionality
+                post.setUser(user);
+
+                if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
+                    Glide.with(context)
+                            .load(user.getProfileImageUrl())
+                            .placeholder(R.drawable.img)
+                            .circleCrop()
+                            .into(holder.btnProfile);
+                } else {
+                    holder.btnProfile.setImageResource(R.drawable.img);
+                }
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+                holder.tvUsername.setText("User");
+                holder.btnProfile.setImageResource(R.drawable.img);
+            }
+        });
     }
 
     private void setupImages(ViewHolder holder, List<String> images) {
@@ -371,16 +375,10 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean liked = snapshot.exists();
-                if (liked) {
-                    ref.removeValue();
-                    if (post.getLikedBy() != null) post.getLikedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (post.getLikedBy() == null) post.setLikedBy(new java.util.HashMap<>());
-                    post.getLikedBy().put(uid, true);
-                }
+                postSummaryRepository.setLiked(post.getItemId(), uid, !liked);
+                post.applyLike(uid, !liked);
 
-                int likeCount = post.getLikedBy() != null ? post.getLikedBy().size() : 0;
+                int likeCount = (int) post.getLikeTotal();
                 holder.text_like_count.setText(String.valueOf(likeCount));
                 updateLikeUi(holder, !liked);
             }
@@ -410,16 +408,10 @@ public class PostAdapter extends RecyclerView.Adapter<PostAdapter.ViewHolder> {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean saved = snapshot.exists();
-                if (saved) {
-                    ref.removeValue();
-                    if (post.getSavedBy() != null) post.getSavedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (post.getSavedBy() == null) post.setSavedBy(new java.util.HashMap<>());
-                    post.getSavedBy().put(uid, true);
-                }
+                postSummaryRepository.setSaved(post.getItemId(), uid, !saved);
+                post.applySave(uid, !saved);
 
-                int saveCount = post.getSavedBy() != null ? post.getSavedBy().size() : 0;
+                int saveCount = (int) post.getSaveTotal();
                 holder.text_save_count.setText(String.valueOf(saveCount));
                 updateSaveUi(holder, !saved);
             }
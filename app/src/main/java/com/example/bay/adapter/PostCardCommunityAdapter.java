@@ -27,6 +27,9 @@ import com.example.bay.fragment.CommunityAccountFragment;
 import com.example.bay.fragment.PostDetailFragment;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -48,6 +51,7 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
     private List<PostCardItem> postCardItemList = new ArrayList<>();
     private final MutableLiveData<List<PostCardItem>> postCardItemsLiveData = new MutableLiveData<>();
     private final FirebaseAuth mAuth = FirebaseAuth.getInstance();
+    private final PostSummaryRepository postSummaryRepository = new PostSummaryRepository();
 
     public PostCardCommunityAdapter(Context context) {
         this.context = context;
@@ -74,9 +78,9 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
 
     private long popularity(PostCardItem p) {
         if (p == null) return 0;
-        long likes = p.getLikedBy() != null ? p.getLikedBy().size() : 0;
-        long saves = p.getSavedBy() != null ? p.getSavedBy().size() : 0;
-        long comments = p.getComments() != null ? p.getComments().size() : 0;
+        long likes = p.getLikeTotal();
+        long saves = p.getSaveTotal();
+        long comments = p.getCommentTotal();
         return likes + saves + comments;
     }
 
@@ -113,67 +117,58 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
                 ? TimeUtils.formatTimeAgo(item.getTimestamp())
                 : "មិនទាន់មាន");
 
-        long likeCount = item.getLikedBy() != null ? item.getLikedBy().size() : 0;
-        long saveCount = item.getSavedBy() != null ? item.getSavedBy().size() : 0;
-        long commentCount = item.getComments() != null ? item.getComments().size() : 0;
+        long likeCount = item.getLikeTotal();
+        long saveCount = item.getSaveTotal();
+        long commentCount = item.getCommentTotal();
 
         holder.tvLike.setText(String.valueOf(likeCount));
         holder.tvSave.setText(String.valueOf(saveCount));
         holder.tvComment.setText(String.valueOf(commentCount));
 
         if (item.getUserId() != null && !item.getUserId().isEmpty()) {
-            FirebaseDatabase.getInstance()
-                    .getReference("users")
-                    .child(item.getUserId())
-                    .addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                            User user = snapshot.getValue(User.class);
-                            if (user == null) {
-                                holder.tvUsername.setText("អ្នកប្រើប្រាស់");
-                                holder.btnProfile.setImageResource(R.drawable.img);
-                                return;
-                            }
-
-                            String name = ((user.getFirst_name() != null ? user.getFirst_name() : "") + " " +
-                                    (user.getLast_name() != null ? user.getLast_name() : "")).trim();
-                            holder.tvUsername.setText(name.isEmpty() ? "អ្នកប្រើប្រាស់" : name);
-
-                            if (user.isUserVerified()) {
-                                holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
-                                        null,
-                                        null,
-                                        ContextCompat.getDrawable(context, R.drawable.ico_user_verified),
-                                        null
-                                );
-                            } else {
-                                holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
-                                        null,
-                                        null,
-                                        null,
-                                        null
-                                );
-                            }
-
-                            Glide.with(context)
-                                    .load(user.getProfileImageUrl())
-                                    .placeholder(R.drawable.img)
-                                    .into(holder.btnProfile);
-
-                            holder.btnProfile.setOnClickListener(v -> {
-                                if (context instanceof HomeActivity) {
-                                    Fragment f = CommunityAccountFragment.newInstance(item.getUserId());
-                                    ((HomeActivity) context).LoadFragment(f);
-                                    ((HomeActivity) context).hideBottomNavigation();
-                                }
-                            });
-                        }
-
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {
-                            holder.tvUsername.setText("អ្នកប្រើប្រាស់");
+            UserProfileCache.getInstance().getUser(item.getUserId(), new UserRepository.UserCallback<User>() {
+                @Override
+                public void onSuccess(User user) {
+                    String name = ((user.getFirst_name() != null ? user.getFirst_name() : "") + " " +
+                            (user.getLast_name() != null ? user.getLast_name() : "")).trim();
+                    holder.tvUsername.setText(name.isEmpty() ? "អ្នកប្រើប្រាស់" : name);
+
+                    if (user.isUserVerified()) {
+                        holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
+                                null,
+                                null,
+                                ContextCompat.getDrawable(context, R.drawable.ico_user_verified),
+                                null
+                        );
+                    } else {
+                        holder.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
+                                null,
+                                null,
+                                null,
+                                null
+                        );
+                    }
+
+                    Glide.with(context)
+                            .load(user.getProfileImageUrl())
+                            .placeholder(R.drawable.img)
+                            .into(holder.btnProfile);
+
+                    holder.btnProfile.setOnClickListener(v -> {
+                        if (context instanceof HomeActivity) {
+                            Fragment f = CommunityAccountFragment.newInstance(item.getUserId());
+                            ((HomeActivity) context).LoadFragment(f);
+                            ((HomeActivity) context).hideBottomNavigation();
                         }
                     });
+                }
+
+                @Override
+                public void onError(String errorMsg) {
+                    holder.tvUsername.setText("អ្នកប្រើប្រាស់");
+                    holder.btnProfile.setImageResource(R.drawable.img);
+                }
+            });
         } else {
             holder.tvUsername.setText("អ្នកប្រើប្រាស់");
         }
@@ -184,6 +179,15 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
         updateLikeUi(holder, uid != null && item.isLikedByUser(uid));
         updateSaveUi(holder, uid != null && item.isSavedByUser(uid));
 
+        if (uid != null && !item.isViewerStateLoaded()) {
+            postSummaryRepository.loadViewerState(item, uid, loaded -> {
+                int pos = holder.getAdapterPosition();
+                if (pos == RecyclerView.NO_POSITION || pos >= postCardItemList.size() || postCardItemList.get(pos) != loaded) return;
+                updateLikeUi(holder, loaded.isLikedByUser(uid));
+                updateSaveUi(holder, loaded.isSavedByUser(uid));
+            });
+        }
+
         setupPhotoGrid(holder, item);
 
         View.OnClickListener openDetail = v -> {
@@ -278,15 +282,9 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean liked = snapshot.exists();
-                if (liked) {
-                    ref.removeValue();
-                    if (item.getLikedBy() != null) item.getLikedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (item.getLikedBy() == null) item.setLikedBy(new java.util.HashMap<>());
-                    item.getLikedBy().put(uid, true);
-                }
-                holder.tvLike.setText(String.valueOf(item.getLikedBy() != null ? item.getLikedBy().size() : 0));
+                postSummaryRepository.setLiked(item.getItemId(), uid, !liked);
+                item.applyLike(uid, !liked);
+                holder.tvLike.setText(String.valueOf(item.getLikeTotal()));
                 updateLikeUi(holder, !liked);
             }
 
@@ -313,15 +311,9 @@ public class PostCardCommunityAdapter extends RecyclerView.Adapter<PostCardCommu
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean saved = snapshot.exists();
-                if (saved) {
-                    ref.removeValue();
-                    if (item.getSavedBy() != null) item.getSavedBy().remove(uid);
-                } else {
-                    ref.setValue(true);
-                    if (item.getSavedBy() == null) item.setSavedBy(new java.util.HashMap<>());
-                    item.getSavedBy().put(uid, true);
-                }
-                holder.tvSave.setText(String.valueOf(item.getSavedBy() != null ? item.getSavedBy().size() : 0));
+                postSummaryRepository.setSaved(item.getItemId(), uid, !saved);
+                item.applySave(uid, !saved);
+                holder.tvSave.setText(String.valueOf(item.getSaveTotal()));
                 updateSaveUi(holder, !saved);
             }
 
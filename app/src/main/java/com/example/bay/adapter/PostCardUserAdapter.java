@@ -3,10 +3,10 @@ package com.example.bay.adapter;
 import android.content.Context;
 import androidx.annotation.NonNull;
 import com.example.bay.model.PostCardItem;
+import com.example.bay.util.FirebaseDBHelper;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 import java.util.ArrayList;
 import java.util.List;
@@ -31,8 +31,7 @@ public class PostCardUserAdapter extends PostCardCommunityAdapter {
     }
 
     private void loadUserPosts() {
-        DatabaseReference ref = FirebaseDatabase.getInstance()
-                .getReference("postCardItems");
+        DatabaseReference ref = FirebaseDBHelper.getPostSummariesRef();
 
         ref.orderByChild("userId")
                 .equalTo(userId)
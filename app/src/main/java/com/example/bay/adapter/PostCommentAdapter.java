@@ -20,17 +20,19 @@ import com.bumptech.glide.Glide;
 import com.example.bay.R;
 import com.example.bay.model.Comment;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
+import com.example.bay.util.FirebaseDBHelper;
 import com.example.bay.util.TimeUtils;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.ViewHolder> {
 
@@ -39,9 +41,11 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
     }
 
     private List<Comment> commentList = new ArrayList<>();
-    private final Map<String, User> userCache = new HashMap<>();
+    private final UserProfileCache userProfileCache = UserProfileCache.getInstance();
     private final Context context;
+    private final String postId;
     private final OnCommentActionListener listener;
+    private final PostSummaryRepository postSummaryRepository = new PostSummaryRepository();
 
     private String editingCommentId = null;
 
@@ -50,14 +54,39 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
                     ? FirebaseAuth.getInstance().getCurrentUser().getUid()
                     : null;
 
-    public PostCommentAdapter(Context context, OnCommentActionListener listener) {
+    // Comments live under postCardItems/{postId}/comments
+    public PostCommentAdapter(Context context, String postId, OnCommentActionListener listener) {
         this.context = context;
+        this.postId = postId;
         this.listener = listener;
     }
 
     public void setComments(List<Comment> comments) {
         this.commentList = comments != null ? comments : new ArrayList<>();
         notifyDataSetChanged();
+        prefetchCommentUsers();
+    }
+
+    // Resolve every commenter in one bounded batch instead of one lookup per bound row
+    private void prefetchCommentUsers() {
+        Set<String> missing = new HashSet<>();
+        for (Comment c : commentList) {
+            if (c.getUserId() != null && userProfileCache.peek(c.getUserId()) == null) {
+                missing.add(c.getUserId());
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        userProfileCache.getUsers(missing, new UserRepository.UserCallback<Map<String, User>>() {
+            @Override
+            public void onSuccess(Map<String, User> users) {
+                if (!users.isEmpty()) notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+            }
+        });
     }
 
     public List<Comment> getComments() {
@@ -158,17 +187,13 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
             String newText = holder.etEditComment.getText().toString().trim();
             if (newText.isEmpty()) return;
 
-            FirebaseDatabase.getInstance()
-                    .getReference("comments")
-                    .child(comment.getCommentId())
-                    .child("text")
-                    .setValue(newText);
-
-            FirebaseDatabase.getInstance()
-                    .getReference("comments")
+            Map<String, Object> edit = new HashMap<>();
+            edit.put("text", newText);
+            edit.put("edited", true);
+            FirebaseDBHelper.getPostCardItemRef(postId)
+                    .child("comments")
                     .child(comment.getCommentId())
-                    .child("edited")
-                    .setValue(true);
+                    .updateChildren(edit);
 
             comment.setText(newText);
             comment.setEdited(true);
@@ -206,7 +231,7 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
                 return true;
             }
             if ("លុប".equals(item.getTitle())) {
-                deleteComment(comment, position);
+                deleteComment(comment);
                 return true;
             }
             return false;
@@ -214,40 +239,37 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
         popup.show();
     }
 
-    private void deleteComment(Comment comment, int position) {
-        FirebaseDatabase.getInstance()
-                .getReference("comments")
-                .child(comment.getCommentId())
-                .removeValue()
+    private void deleteComment(Comment comment) {
+        // Removes the comment and decrements the summary's commentCount in one write
+        postSummaryRepository.deleteComment(postId, comment.getCommentId())
                 .addOnSuccessListener(v -> {
-                    commentList.remove(position);
-                    notifyItemRemoved(position);
+                    // The post listener may already have replaced the list
+                    int index = commentList.indexOf(comment);
+                    if (index < 0) return;
+                    commentList.remove(index);
+                    notifyItemRemoved(index);
                 });
     }
 
     private void bindCommentUser(String userId, ViewHolder holder) {
         if (userId == null) return;
 
-        if (userCache.containsKey(userId)) {
-            bindUserData(holder, userCache.get(userId));
+        User cached = userProfileCache.peek(userId);
+        if (cached != null) {
+            bindUserData(holder, cached);
             return;
         }
 
-        FirebaseDatabase.getInstance()
-                .getReference("users")
-                .child(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        User u = snapshot.getValue(User.class);
-                        if (u != null) {
-                            userCache.put(userId, u);
-                            notifyDataSetChanged();
-                        }
-                    }
-
-                    @Override public void onCancelled(@NonNull DatabaseError error) {}
-                });
+        userProfileCache.getUser(userId, new UserRepository.UserCallback<User>() {
+            @Override
+            public void onSuccess(User u) {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+            }
+        });
     }
 
     @SuppressLint("SetTextI18n")
@@ -281,7 +303,7 @@ public class PostCommentAdapter extends RecyclerView.Adapter<PostCommentAdapter.
     private void bindReplyInfo(Comment comment, ViewHolder holder) {
         for (Comment c : commentList) {
             if (comment.getParentCommentId().equals(c.getCommentId())) {
-                User u = userCache.get(c.getUserId());
+                User u = userProfileCache.peek(c.getUserId());
                 holder.tvReplyToUsername.setText(
                         u != null
                                 ? (u.getFirst_name() + " " + u.getLast_name()).trim()
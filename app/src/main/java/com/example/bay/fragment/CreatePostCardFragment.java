@@ -27,6 +27,7 @@ import com.example.bay.R;
 import com.example.bay.databinding.FragmentCreatePostCardBinding;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
 import com.example.bay.repository.UserRepository;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
@@ -353,7 +354,8 @@ public class CreatePostCardFragment extends Fragment {
     }
 
     private void savePostToRealtimeDatabase(String userId, String content, List<String> imageUrls) {
-        String timestamp = String.valueOf(System.currentTimeMillis());
+        long now = System.currentTimeMillis();
+        String timestamp = String.valueOf(now);
         String key = databaseReference.push().getKey();
 
         if (key == null) {
@@ -371,11 +373,11 @@ public class CreatePostCardFragment extends Fragment {
                 imageUrls,
                 timestamp
         );
+        post.setCreatedAt(now);
 
         Map<String, Object> postValues = postToMap(post);
 
-        databaseReference.child(key)
-                .setValue(postValues)
+        new PostSummaryRepository().createPost(key, postValues, post)
                 .addOnSuccessListener(unused -> {
                     setPostingState(false);
                     Toast.makeText(requireContext(),
@@ -397,6 +399,7 @@ public class CreatePostCardFragment extends Fragment {
         map.put("content", post.getContent());
         map.put("imageUrls", post.getImageUrls());
         map.put("timestamp", post.getTimestamp());
+        map.put("createdAt", post.getCreatedAt());
         map.put("likedBy", post.getLikedBy());
         map.put("savedBy", post.getSavedBy());
         map.put("comments", post.getComments());
@@ -34,6 +34,7 @@ import java.util.Locale;
 
 public class DetailReviewAllFragment extends Fragment {
     private static final String TAG = "DetailReviewAllFragment";
+    private static final int LOAD_MORE_THRESHOLD = 3;
     private static final String ARG_SHOPPING_ITEM = "shopping_item";
 
     // Views
@@ -202,9 +203,22 @@ public class DetailReviewAllFragment extends Fragment {
         reviewAdapter = new ReviewAdapter();
         reviewAdapter.setShowAllReviews(true); // Show all reviews in this fragment
 
-        rvAllReviews.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        rvAllReviews.setLayoutManager(layoutManager);
         rvAllReviews.setAdapter(reviewAdapter);
         rvAllReviews.setNestedScrollingEnabled(true);
+
+        // Load the next page when the user scrolls near the end of the list
+        rvAllReviews.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= reviewAdapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    viewModel.loadMoreReviews();
+                }
+            }
+        });
     }
 
     private void setupClickListeners() {
@@ -37,6 +37,7 @@ import com.example.bay.databinding.FragmentFarmMapBinding;
 import com.example.bay.databinding.ItemModalBigCardLocationsDataBinding;
 import com.example.bay.model.Location;
 import com.example.bay.repository.FarmMapRepository;
+import com.example.bay.util.StreamFilter;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
@@ -245,7 +246,8 @@ public class FarmMapFragment extends Fragment implements OnMapReadyCallback {
 
     private void loadLocationsFromRepository(String filter) {
         showLoading();
-        repository.getAllLocations(new FarmMapRepository.LocationCallback<Map<String, Location>>() {
+        repository.getLocations(StreamFilter.where(this::isLocationValid),
+                new FarmMapRepository.LocationCallback<Map<String, Location>>() {
             @Override
             public void onSuccess(Map<String, Location> result) {
                 hideLoading();
@@ -259,7 +261,7 @@ public class FarmMapFragment extends Fragment implements OnMapReadyCallback {
 
                 for (Map.Entry<String, Location> entry : result.entrySet()) {
                     Location loc = entry.getValue();
-                    if (isLocationValid(loc) && matchesFilter(filter, loc.category)) {
+                    if (matchesFilter(filter, loc.category)) {
                         addMarkerToMap(loc);
                     }
                 }
@@ -18,7 +18,6 @@ import com.example.bay.adapter.ChatAdapter;
 import com.example.bay.adapter.OnlineUserAdapter;
 import com.example.bay.databinding.FragmentMessageBinding;
 import com.example.bay.model.Chat;
-import com.example.bay.model.Message;
 import com.example.bay.model.User;
 import com.example.bay.repository.ChatRepository;
 import com.example.bay.util.FirebaseDBHelper;
@@ -26,7 +25,9 @@ import com.example.bay.viewmodel.MessageViewModel;
 import com.google.firebase.auth.FirebaseAuth;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MessageFragment extends Fragment {
 
@@ -80,7 +81,7 @@ public class MessageFragment extends Fragment {
 
         onlineUserAdapter = new OnlineUserAdapter(
                 new ArrayList<>(),
-                new ArrayList<>(),
+                new HashSet<>(),
                 currentUserId,
                 null,
                 new OnlineUserAdapter.OnUserClickListener() {
@@ -106,8 +107,8 @@ public class MessageFragment extends Fragment {
                     onlineUserAdapter.updateData(
                             messageViewModel.getAllUsers().getValue() != null ?
                                     messageViewModel.getAllUsers().getValue() : new ArrayList<>(),
-                            messageViewModel.getAllMessages().getValue() != null ?
-                                    messageViewModel.getAllMessages().getValue() : new ArrayList<>(),
+                            messageViewModel.getChatPartnerIds().getValue() != null ?
+                                    messageViewModel.getChatPartnerIds().getValue() : new HashSet<>(),
                             user
                     );
                 }
@@ -121,23 +122,23 @@ public class MessageFragment extends Fragment {
                     User currentUser = messageViewModel.getCurrentUser().getValue();
                     onlineUserAdapter.updateData(
                             users,
-                            messageViewModel.getAllMessages().getValue() != null ?
-                                    messageViewModel.getAllMessages().getValue() : new ArrayList<>(),
+                            messageViewModel.getChatPartnerIds().getValue() != null ?
+                                    messageViewModel.getChatPartnerIds().getValue() : new HashSet<>(),
                             currentUser
                     );
                 }
             }
         });
 
-        messageViewModel.getAllMessages().observe(getViewLifecycleOwner(), new Observer<List<Message>>() {
+        messageViewModel.getChatPartnerIds().observe(getViewLifecycleOwner(), new Observer<Set<String>>() {
             @Override
-            public void onChanged(List<Message> messages) {
-                if (messages != null) {
+            public void onChanged(Set<String> partnerIds) {
+                if (partnerIds != null) {
                     User currentUser = messageViewModel.getCurrentUser().getValue();
                     onlineUserAdapter.updateData(
                             messageViewModel.getAllUsers().getValue() != null ?
                                     messageViewModel.getAllUsers().getValue() : new ArrayList<>(),
-                            messages,
+                            partnerIds,
                             currentUser
                     );
                 }
@@ -202,6 +203,9 @@ public class MessageFragment extends Fragment {
     }
 
     private String getChatPartnerName(Chat chat) {
+        if (chat.getPartnerName() != null) {
+            return chat.getPartnerName();
+        }
         String partnerId = chat.getChatPartnerId(currentUserId);
         List<User> allUsers = messageViewModel.getAllUsers().getValue();
         if (allUsers != null) {
@@ -23,6 +23,7 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.bitmap.CircleCrop;
@@ -35,8 +36,12 @@ import com.example.bay.model.Message;
 import com.example.bay.model.User;
 import com.example.bay.repository.ChatRepository;
 import com.example.bay.repository.UserRepository;
+import com.example.bay.service.ForegroundChatListener;
+import com.example.bay.util.ChatImagePipeline;
+import com.example.bay.util.ChatNotifier;
 import com.example.bay.util.FirebaseDBHelper;
-import com.example.bay.util.ImageUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
@@ -58,6 +63,8 @@ public class PersonalMessageFragment extends Fragment {
 
     private static final String ARG_CHAT_ID = "chatId";
     private static final String ARG_USER_ID = "userId";
+    private static final int MESSAGE_PAGE_SIZE = 30;
+    private static final int LOAD_OLDER_THRESHOLD = 5;
 
     private FragmentPersonalMessageBinding binding;
     private HomeActivity homeActivity;
@@ -73,7 +80,10 @@ public class PersonalMessageFragment extends Fragment {
 
     private ValueEventListener typingListener;
     private ValueEventListener onlineStatusListener;
-    private ValueEventListener messagesListener;
+    private ValueEventListener partnerLastReadListener;
+    private ChatRepository.MessageSubscription newMessagesSubscription;
+    private boolean isLoadingOlder = false;
+    private boolean hasOlderMessages = true;
 
     private FirebaseStorage storage;
     private StorageReference storageRef;
@@ -169,7 +179,7 @@ public class PersonalMessageFragment extends Fragment {
     }
 
     private void setupViews() {
-        messageAdapter = new MessageAdapter(messageList, currentUserId, requireContext(),
+        messageAdapter = new MessageAdapter(currentUserId, requireContext(),
                 new MessageAdapter.OnImageClickListener() {
                     @Override
                     public void onImageClick(Message message, ImageView imageView) {
@@ -182,6 +192,15 @@ public class PersonalMessageFragment extends Fragment {
         binding.rvMessages.setLayoutManager(layoutManager);
         binding.rvMessages.setAdapter(messageAdapter);
 
+        binding.rvMessages.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+                    loadOlderMessages();
+                }
+            }
+        });
+
         binding.btnBack.setOnClickListener(v -> homeActivity.onBackPressed());
 
         binding.btnSend.setOnClickListener(v -> {
@@ -337,6 +356,7 @@ public class PersonalMessageFragment extends Fragment {
             public void onSuccess(User user) {
                 otherUser = user;
                 updateUIWithUserData(user);
+                chatRepository.refreshPartnerSnapshot(currentUserId, chatId, otherUserId, user);
             }
 
             @Override
@@ -365,43 +385,148 @@ public class PersonalMessageFragment extends Fragment {
         });
     }
 
+    // Opens with the newest page only, then follows new messages through child events
     private void loadMessages() {
-        messagesListener = new ValueEventListener() {
+        chatRepository.getRecentMessages(chatId, MESSAGE_PAGE_SIZE, new ChatRepository.ChatCallback<List<Message>>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (!isAdded() || getView() == null) {
+            public void onSuccess(List<Message> messages) {
+                if (!isAdded() || binding == null) {
                     return;
                 }
 
                 messageList.clear();
-                for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
-                    Message message = messageSnapshot.getValue(Message.class);
-                    if (message != null) {
-                        message.setMessageId(messageSnapshot.getKey());
-                        messageList.add(message);
-                    }
-                }
-
-                requireActivity().runOnUiThread(() -> {
-                    messageAdapter.notifyDataSetChanged();
-
-                    if (messageList.size() > 0) {
-                        binding.rvMessages.smoothScrollToPosition(messageList.size() - 1);
+                messageList.addAll(messages);
+                hasOlderMessages = messages.size() >= MESSAGE_PAGE_SIZE;
+                submitMessages(() -> {
+                    if (binding != null && messageList.size() > 0) {
+                        binding.rvMessages.scrollToPosition(messageList.size() - 1);
                     }
                 });
+
+                long since = messageList.isEmpty() ? 0 : messageList.get(messageList.size() - 1).getTimestamp();
+                listenForNewMessages(since);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(String error) {
                 if (isAdded() && getContext() != null) {
                     Toast.makeText(getContext(), "Failed to load messages", Toast.LENGTH_SHORT).show();
                 }
             }
-        };
+        });
+    }
+
+    private void listenForNewMessages(long sinceTimestamp) {
+        newMessagesSubscription = chatRepository.listenForNewMessages(chatId, sinceTimestamp,
+                new ChatRepository.MessageEventListener() {
+                    @Override
+                    public void onMessageAdded(Message message) {
+                        if (!isAdded() || binding == null) {
+                            return;
+                        }
+
+                        int existing = indexOfMessage(message.getMessageId());
+                        if (existing >= 0) {
+                            messageList.set(existing, message);
+                            submitMessages(null);
+                            return;
+                        }
+
+                        // Normally the newest; walk back in case of clock skew between senders
+                        int position = messageList.size();
+                        while (position > 0 && messageList.get(position - 1).getTimestamp() > message.getTimestamp()) {
+                            position--;
+                        }
+                        messageList.add(position, message);
+                        if (otherUserId.equals(message.getSenderId())) {
+                            // Seen while the chat is open
+                            chatRepository.markMessagesAsRead(chatId, currentUserId);
+                        }
+                        submitMessages(() -> {
+                            if (binding != null) {
+                                binding.rvMessages.smoothScrollToPosition(messageList.size() - 1);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onMessageChanged(Message message) {
+                        if (!isAdded() || binding == null) {
+                            return;
+                        }
+
+                        int existing = indexOfMessage(message.getMessageId());
+                        if (existing >= 0) {
+                            messageList.set(existing, message);
+                            submitMessages(null);
+                        }
+                    }
+
+                    @Override
+                    public void onMessageRemoved(String messageId) {
+                        if (!isAdded() || binding == null) {
+                            return;
+                        }
+
+                        int existing = indexOfMessage(messageId);
+                        if (existing >= 0) {
+                            messageList.remove(existing);
+                            submitMessages(null);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        if (isAdded() && getContext() != null) {
+                            Toast.makeText(getContext(), "Failed to load messages", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+    }
+
+    private void loadOlderMessages() {
+        if (isLoadingOlder || !hasOlderMessages || messageList.isEmpty()) {
+            return;
+        }
+
+        isLoadingOlder = true;
+        chatRepository.getOlderMessages(chatId, messageList.get(0), MESSAGE_PAGE_SIZE,
+                new ChatRepository.ChatCallback<List<Message>>() {
+                    @Override
+                    public void onSuccess(List<Message> messages) {
+                        isLoadingOlder = false;
+                        if (!isAdded() || binding == null) {
+                            return;
+                        }
+
+                        hasOlderMessages = messages.size() >= MESSAGE_PAGE_SIZE;
+                        if (!messages.isEmpty()) {
+                            messageList.addAll(0, messages);
+                            submitMessages(null);
+                        }
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        isLoadingOlder = false;
+                    }
+                });
+    }
 
-        FirebaseDBHelper.getChatMessagesRef(chatId)
-                .orderByChild("timestamp")
-                .addValueEventListener(messagesListener);
+    // The adapter diffs a snapshot of messageList in the background and only rebinds rows that changed
+    private void submitMessages(Runnable onCommitted) {
+        messageAdapter.submitList(new ArrayList<>(messageList), onCommitted);
+    }
+
+    private int indexOfMessage(String messageId) {
+        if (messageId == null) return -1;
+        // Live events almost always concern the newest messages, so search from the end
+        for (int i = messageList.size() - 1; i >= 0; i--) {
+            if (messageId.equals(messageList.get(i).getMessageId())) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private void setupListeners() {
@@ -466,6 +591,24 @@ public class PersonalMessageFragment extends Fragment {
 
         FirebaseDBHelper.getOnlineStatusRef(otherUserId)
                 .addValueEventListener(onlineStatusListener);
+
+        partnerLastReadListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (!isAdded() || getView() == null) {
+                    return;
+                }
+
+                Long lastRead = snapshot.getValue(Long.class);
+                messageAdapter.setPartnerLastRead(lastRead != null ? lastRead : 0L);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {}
+        };
+
+        FirebaseDBHelper.getLastReadRef(chatId, otherUserId)
+                .addValueEventListener(partnerLastReadListener);
     }
 
     private void sendTextMessage() {
@@ -502,67 +645,74 @@ public class PersonalMessageFragment extends Fragment {
         isUploading = true;
         showUploadProgress(true);
 
-        String filename = "chat_images/" + UUID.randomUUID().toString() + ".jpg";
-        StorageReference imageRef = storageRef.child(filename);
-
-        byte[] compressedImage = ImageUtils.compressImage(requireContext(), selectedImageUri, 1024);
+        // Decode and encode on the pipeline thread; the chat stays responsive meanwhile
+        ChatImagePipeline.process(requireContext(), selectedImageUri, new ChatImagePipeline.Callback() {
+            @Override
+            public void onSuccess(ChatImagePipeline.Result result) {
+                if (binding == null) return;
+                uploadProcessedImage(result);
+            }
 
-        if (compressedImage == null) {
-            Toast.makeText(requireContext(), "Failed to compress image", Toast.LENGTH_SHORT).show();
-            showUploadProgress(false);
-            isUploading = false;
-            return;
-        }
+            @Override
+            public void onError(String error) {
+                if (binding == null) return;
+                showUploadProgress(false);
+                isUploading = false;
+                Toast.makeText(requireContext(), "Failed to compress image", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        UploadTask uploadTask = imageRef.putBytes(compressedImage);
+    // Full image and thumbnail upload in parallel; only the full image is required
+    private void uploadProcessedImage(ChatImagePipeline.Result result) {
+        StorageReference imageRef = storageRef.child("chat_images/" + UUID.randomUUID().toString() + ".jpg");
+        StorageReference thumbRef = storageRef.child("chat_images/thumb_" + UUID.randomUUID().toString() + ".jpg");
 
+        UploadTask uploadTask = imageRef.putBytes(result.fullImage);
         uploadTask.addOnProgressListener(taskSnapshot -> {
             double progress = (100.0 * taskSnapshot.getBytesTransferred()) / taskSnapshot.getTotalByteCount();
             updateUploadProgress((int) progress);
         });
 
-        uploadTask.addOnSuccessListener(taskSnapshot -> {
-            imageRef.getDownloadUrl().addOnSuccessListener(uri -> {
-                byte[] thumbnail = ImageUtils.createThumbnail(requireContext(), selectedImageUri, 200);
-                if (thumbnail == null) {
-                    sendImageMessage(uri.toString(), null, compressedImage.length, imageRef.getName());
-                    return;
-                }
+        Task<Uri> imageUrlTask = uploadTask.continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            return imageRef.getDownloadUrl();
+        });
 
-                String thumbFilename = "chat_images/thumb_" + UUID.randomUUID().toString() + ".jpg";
-                StorageReference thumbRef = storageRef.child(thumbFilename);
-
-                thumbRef.putBytes(thumbnail).addOnSuccessListener(thumbTask -> {
-                    thumbRef.getDownloadUrl().addOnSuccessListener(thumbUri -> {
-                        sendImageMessage(uri.toString(), thumbUri.toString(), compressedImage.length, imageRef.getName());
-                    }).addOnFailureListener(e -> {
-                        sendImageMessage(uri.toString(), null, compressedImage.length, imageRef.getName());
-                    });
-                }).addOnFailureListener(e -> {
-                    sendImageMessage(uri.toString(), null, compressedImage.length, imageRef.getName());
-                });
-            });
-        }).addOnFailureListener(e -> {
-            requireActivity().runOnUiThread(() -> {
+        Task<Uri> thumbUrlTask = thumbRef.putBytes(result.thumbnail).continueWithTask(task -> {
+            if (!task.isSuccessful()) {
+                throw task.getException();
+            }
+            return thumbRef.getDownloadUrl();
+        });
+
+        Tasks.whenAllComplete(imageUrlTask, thumbUrlTask).addOnCompleteListener(done -> {
+            if (binding == null) return;
+
+            if (!imageUrlTask.isSuccessful()) {
                 showUploadProgress(false);
                 isUploading = false;
-                if (isAdded() && getContext() != null) {
-                    Toast.makeText(getContext(), "Failed to upload image", Toast.LENGTH_SHORT).show();
-                }
-            });
+                Toast.makeText(requireContext(), "Failed to upload image", Toast.LENGTH_SHORT).show();
+                return;
+            }
+
+            String thumbnailUrl = thumbUrlTask.isSuccessful() ? thumbUrlTask.getResult().toString() : null;
+            sendImageMessage(imageUrlTask.getResult().toString(), thumbnailUrl, result.width, result.height,
+                    result.fullImage.length, imageRef.getName());
         });
     }
 
-    private void sendImageMessage(String imageUrl, String thumbnailUrl, long fileSize, String fileName) {
-        int[] dimensions = ImageUtils.getImageDimensions(requireContext(), selectedImageUri);
-
+    private void sendImageMessage(String imageUrl, String thumbnailUrl, int width, int height,
+                                  long fileSize, String fileName) {
         Message imageMessage = new Message(
                 currentUserId,
                 otherUserId,
                 imageUrl,
                 thumbnailUrl,
-                dimensions[0],
-                dimensions[1],
+                width,
+                height,
                 fileName,
                 fileSize
         );
@@ -637,6 +787,8 @@ public class PersonalMessageFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
+        ForegroundChatListener.setOpenChatId(chatId);
+        ChatNotifier.clearChat(requireContext(), chatId);
         if (currentUserId != null) {
             FirebaseDBHelper.getOnlineStatusRef(currentUserId).setValue(true);
         }
@@ -645,6 +797,7 @@ public class PersonalMessageFragment extends Fragment {
     @Override
     public void onPause() {
         super.onPause();
+        ForegroundChatListener.setOpenChatId(null);
         if (currentUserId != null) {
             FirebaseDBHelper.getOnlineStatusRef(currentUserId).onDisconnect().setValue(false);
         }
@@ -664,9 +817,14 @@ public class PersonalMessageFragment extends Fragment {
                     .removeEventListener(onlineStatusListener);
         }
 
-        if (messagesListener != null) {
-            FirebaseDBHelper.getChatMessagesRef(chatId)
-                    .removeEventListener(messagesListener);
+        if (partnerLastReadListener != null) {
+            FirebaseDBHelper.getLastReadRef(chatId, otherUserId)
+                    .removeEventListener(partnerLastReadListener);
+        }
+
+        if (newMessagesSubscription != null) {
+            newMessagesSubscription.remove();
+            newMessagesSubscription = null;
         }
 
         chatRepository.setTypingStatus(chatId, currentUserId, false);
@@ -36,6 +36,9 @@ import com.example.bay.databinding.FragmentPostDetailBinding;
 import com.example.bay.model.Comment;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
+import com.example.bay.repository.UserProfileCache;
+import com.example.bay.repository.UserRepository;
 import com.example.bay.util.TimeUtils;
 import com.google.android.material.bottomsheet.BottomSheetDialogFragment;
 import com.google.firebase.auth.FirebaseAuth;
@@ -57,6 +60,7 @@ public class PostDetailFragment extends Fragment {
     private FragmentPostDetailBinding binding;
     private String postId;
     private DatabaseReference postRef;
+    private final PostSummaryRepository postSummaryRepository = new PostSummaryRepository();
     private ValueEventListener postListener;
     private PostCommentAdapter commentAdapter;
     private CommentThreadDecoration threadDecoration;
@@ -117,11 +121,7 @@ public class PostDetailFragment extends Fragment {
         private void deletePost() {
             if (postId == null) return;
 
-            DatabaseReference postRef = FirebaseDatabase.getInstance()
-                    .getReference("postCardItems")
-                    .child(postId);
-
-            postRef.removeValue()
+            new PostSummaryRepository().deletePost(postId)
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(requireContext(), "បានលុបប្រកាសដោយជោគជ័យ", Toast.LENGTH_SHORT).show();
                         requireActivity().onBackPressed();
@@ -208,36 +208,28 @@ public class PostDetailFragment extends Fragment {
     private void setupCommentsRecyclerView() {
         commentAdapter = new PostCommentAdapter(
                 requireContext(),
+                postId,
                 comment -> {
                     replyToCommentId = getThreadRootId(comment);
                     String userId = comment.getUserId();
                     if (userId == null || binding == null) return;
 
-                    FirebaseDatabase.getInstance()
-                            .getReference("users")
-                            .child(userId)
-                            .addListenerForSingleValueEvent(new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    if (binding == null || !isAdded()) return;
-                                    User user = snapshot.getValue(User.class);
-                                    String name = "";
-                                    if (user != null) {
-                                        if (user.getFirst_name() != null)
-                                            name += user.getFirst_name() + " ";
-                                        if (user.getLast_name() != null)
-                                            name += user.getLast_name();
-                                    }
-                                    if (name.trim().isEmpty()) name = "អ្នកប្រើប្រាស់";
-                                    binding.layoutReplyInfo.setVisibility(VISIBLE);
-                                    binding.tvReplyToUsernameInput.setText(name);
-                                    binding.etComment.setHint("ឆ្លើយតបទៅកាន់ " + name);
-                                    focusCommentInput();
-                                }
-
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {}
-                            });
+                    UserProfileCache.getInstance().getUser(userId, new UserRepository.UserCallback<User>() {
+                        @Override
+                        public void onSuccess(User user) {
+                            String name = "";
+                            if (user.getFirst_name() != null)
+                                name += user.getFirst_name() + " ";
+                            if (user.getLast_name() != null)
+                                name += user.getLast_name();
+                            showReplyTo(name);
+                        }
+
+                        @Override
+                        public void onError(String errorMsg) {
+                            showReplyTo("");
+                        }
+                    });
                 }
         );
 
@@ -388,9 +380,9 @@ public class PostDetailFragment extends Fragment {
                         : "មិនទាន់មាន"
         );
 
-        long likeCount = post.getLikedBy() != null ? post.getLikedBy().size() : 0;
-        long saveCount = post.getSavedBy() != null ? post.getSavedBy().size() : 0;
-        long commentCount = post.getComments() != null ? post.getComments().size() : 0;
+        long likeCount = post.getLikeTotal();
+        long saveCount = post.getSaveTotal();
+        long commentCount = post.getCommentTotal();
 
         binding.textLikeCount.setText(String.valueOf(likeCount));
         binding.textSaveCount.setText(String.valueOf(saveCount));
@@ -406,39 +398,35 @@ public class PostDetailFragment extends Fragment {
         binding.layoutSave.setOnClickListener(v -> toggleSave());
 
         if (post.getUserId() != null) {
-            FirebaseDatabase.getInstance()
-                    .getReference("users")
-                    .child(post.getUserId())
-                    .addListenerForSingleValueEvent(new ValueEventListener() {
-                        @Override
-                        public void onDataChange(@NonNull DataSnapshot snapshot) {
-                            if (binding == null || !isAdded()) return;
-                            User u = snapshot.getValue(User.class);
-                            if (u == null) return;
-                            String name =
-                                    ((u.getFirst_name() != null ? u.getFirst_name() : "") + " " +
-                                            (u.getLast_name() != null ? u.getLast_name() : "")).trim();
-                            binding.tvUsername.setText(name.isEmpty() ? "អ្នកប្រើប្រាស់" : name);
-
-                            if (u != null && u.isUserVerified()) {
-                                binding.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
-                                        null, null,
-                                        ContextCompat.getDrawable(requireContext(), R.drawable.ico_user_verified),
-                                        null
-                                );
-                            } else {
-                                binding.tvUsername.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
-                            }
-
-                            Glide.with(requireContext())
-                                    .load(u.getProfileImageUrl())
-                                    .placeholder(R.drawable.img)
-                                    .into(binding.btnProfile);
-                        }
+            UserProfileCache.getInstance().getUser(post.getUserId(), new UserRepository.UserCallback<User>() {
+                @Override
+                public void onSuccess(User u) {
+                    if (binding == null || !isAdded()) return;
+                    String name =
+                            ((u.getFirst_name() != null ? u.getFirst_name() : "") + " " +
+                                    (u.getLast_name() != null ? u.getLast_name() : "")).trim();
+                    binding.tvUsername.setText(name.isEmpty() ? "អ្នកប្រើប្រាស់" : name);
+
+                    if (u.isUserVerified()) {
+                        binding.tvUsername.setCompoundDrawablesWithIntrinsicBounds(
+                                null, null,
+                                ContextCompat.getDrawable(requireContext(), R.drawable.ico_user_verified),
+                                null
+                        );
+                    } else {
+                        binding.tvUsername.setCompoundDrawablesWithIntrinsicBounds(null, null, null, null);
+                    }
 
-                        @Override
-                        public void onCancelled(@NonNull DatabaseError error) {}
-                    });
+                    Glide.with(requireContext())
+                            .load(u.getProfileImageUrl())
+                            .placeholder(R.drawable.img)
+                            .into(binding.btnProfile);
+                }
+
+                @Override
+                public void onError(String errorMsg) {
+                }
+            });
         }
 
         setupPhotoGrid(post);
@@ -546,29 +534,33 @@ public class PostDetailFragment extends Fragment {
         });
     }
 
+    private void showReplyTo(String name) {
+        if (binding == null || !isAdded()) return;
+        if (name.trim().isEmpty()) name = "អ្នកប្រើប្រាស់";
+        binding.layoutReplyInfo.setVisibility(VISIBLE);
+        binding.tvReplyToUsernameInput.setText(name);
+        binding.etComment.setHint("ឆ្លើយតបទៅកាន់ " + name);
+        focusCommentInput();
+    }
+
     private void loadCurrentUserProfile() {
         FirebaseUser user = mAuth.getCurrentUser();
         if (user == null) return;
 
-        FirebaseDatabase.getInstance()
-                .getReference("users")
-                .child(user.getUid())
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        if (binding == null || !isAdded()) return;
-                        User u = snapshot.getValue(User.class);
-                        if (u != null) {
-                            Glide.with(requireContext())
-                                    .load(u.getProfileImageUrl())
-                                    .placeholder(R.drawable.img)
-                                    .into(binding.ivCurrentUserProfile);
-                        }
-                    }
+        UserProfileCache.getInstance().getUser(user.getUid(), new UserRepository.UserCallback<User>() {
+            @Override
+            public void onSuccess(User u) {
+                if (binding == null || !isAdded()) return;
+                Glide.with(requireContext())
+                        .load(u.getProfileImageUrl())
+                        .placeholder(R.drawable.img)
+                        .into(binding.ivCurrentUserProfile);
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {}
-                });
+            @Override
+            public void onError(String errorMsg) {
+            }
+        });
     }
 
     private void sendCommentToDatabase(String userId, String text) {
@@ -579,7 +571,7 @@ public class PostDetailFragment extends Fragment {
                 ? new Comment(id, userId, text, String.valueOf(System.currentTimeMillis()), replyToCommentId)
                 : new Comment(id, userId, text, String.valueOf(System.currentTimeMillis()));
 
-        postRef.child("comments").child(id).setValue(c)
+        postSummaryRepository.addComment(postId, c)
                 .addOnSuccessListener(v -> {
                     if (binding == null) return;
                     binding.etComment.setText("");
@@ -618,8 +610,7 @@ public class PostDetailFragment extends Fragment {
         ref.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) ref.removeValue();
-                else ref.setValue(true);
+                postSummaryRepository.setLiked(postId, user.getUid(), !snapshot.exists());
             }
 
             @Override
@@ -635,8 +626,7 @@ public class PostDetailFragment extends Fragment {
         ref.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) ref.removeValue();
-                else ref.setValue(true);
+                postSummaryRepository.setSaved(postId, user.getUid(), !snapshot.exists());
             }
 
             @Override
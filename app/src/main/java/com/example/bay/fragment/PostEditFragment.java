@@ -28,6 +28,7 @@ import com.example.bay.R;
 import com.example.bay.databinding.FragmentPostEditBinding;
 import com.example.bay.model.PostCardItem;
 import com.example.bay.model.User;
+import com.example.bay.repository.PostSummaryRepository;
 import com.example.bay.repository.UserRepository;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
@@ -560,7 +561,7 @@ public class PostEditFragment extends Fragment {
         updates.put("imageUrls", imageUrls);
         updates.put("timestamp", String.valueOf(System.currentTimeMillis()));
 
-        postRef.updateChildren(updates)
+        new PostSummaryRepository().updatePost(postId, updates)
                 .addOnSuccessListener(aVoid -> {
                     setPostingState(false);
                     Toast.makeText(requireContext(),
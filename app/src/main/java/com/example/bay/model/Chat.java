@@ -17,6 +17,12 @@ public class Chat {
     private int unreadCount;
     private Map<String, Boolean> participants;
     private long createdAt;
+    // userId -> read watermark (server time of the newest message that user has seen)
+    private Map<String, Long> lastRead;
+    // Inbox entry (user-chats/{userId}/{chatId}) only: snapshot of the other participant
+    private String partnerId;
+    private String partnerName;
+    private String partnerProfileImageUrl;
 
     public Chat() {
     }
@@ -48,6 +54,9 @@ public class Chat {
 
     @Exclude
     public String getChatPartnerId(String currentUserId) {
+        if (partnerId != null) {
+            return partnerId;
+        }
         if (currentUserId.equals(user1Id)) {
             return user2Id;
         } else {
@@ -134,4 +143,36 @@ public class Chat {
     public void setCreatedAt(long createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Map<String, Long> getLastRead() {
+        return lastRead;
+    }
+
+    public void setLastRead(Map<String, Long> lastRead) {
+        this.lastRead = lastRead;
+    }
+
+    public String getPartnerId() {
+        return partnerId;
+    }
+
+    public void setPartnerId(String partnerId) {
+        this.partnerId = partnerId;
+    }
+
+    public String getPartnerName() {
+        return partnerName;
+    }
+
+    public void setPartnerName(String partnerName) {
+        this.partnerName = partnerName;
+    }
+
+    public String getPartnerProfileImageUrl() {
+        return partnerProfileImageUrl;
+    }
+
+    public void setPartnerProfileImageUrl(String partnerProfileImageUrl) {
+        this.partnerProfileImageUrl = partnerProfileImageUrl;
+    }
 }
\ No newline at end of file
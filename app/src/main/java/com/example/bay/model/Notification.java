@@ -22,6 +22,10 @@ public class Notification {
     private boolean read;
     private long timestamp;
     private Map<String, String> metadata;
+    // Sender snapshot written at creation so the list never looks the sender up per row
+    private String senderName;
+    private String senderProfileImageUrl;
+    private long senderSnapshotAt;
 
     public Notification() {
     }
@@ -54,6 +58,9 @@ public class Notification {
         result.put("read", read);
         result.put("timestamp", ServerValue.TIMESTAMP);
         result.put("metadata", metadata);
+        result.put("senderName", senderName);
+        result.put("senderProfileImageUrl", senderProfileImageUrl);
+        result.put("senderSnapshotAt", senderSnapshotAt);
         return result;
     }
 
@@ -153,6 +160,30 @@ public class Notification {
         this.metadata = metadata;
     }
 
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getSenderProfileImageUrl() {
+        return senderProfileImageUrl;
+    }
+
+    public void setSenderProfileImageUrl(String senderProfileImageUrl) {
+        this.senderProfileImageUrl = senderProfileImageUrl;
+    }
+
+    public long getSenderSnapshotAt() {
+        return senderSnapshotAt;
+    }
+
+    public void setSenderSnapshotAt(long senderSnapshotAt) {
+        this.senderSnapshotAt = senderSnapshotAt;
+    }
+
     public static String getRelativeTime(long timestamp) {
         long now = System.currentTimeMillis();
         long diff = now - timestamp;
@@ -1,6 +1,9 @@
 package com.example.bay.model;
 
+import com.google.firebase.database.Exclude;
+
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,12 +15,19 @@ public class PostCardItem {
     private String content;
     private List<String> imageUrls;
     private String timestamp;
+    private Long createdAt;
     private User user; // Added User field
 
     private Map<String, Boolean> likedBy;
     private Map<String, Boolean> savedBy;
     private Map<String, Comment> comments;
 
+    // Denormalized counters; set on postSummaries nodes, which carry no likedBy/savedBy/comments maps
+    private Long likeCount;
+    private Long commentCount;
+    private Long saveCount;
+    private String firstImageUrl;
+
     public PostCardItem(String itemId, String userId, String title, String content,
                         List<String> imageUrls, String timestamp) {
         this.itemId = itemId;
@@ -78,6 +88,14 @@ public class PostCardItem {
         this.timestamp = timestamp;
     }
 
+    public Long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Long createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public User getUser() {
         return user;
     }
@@ -138,4 +156,80 @@ public class PostCardItem {
     public boolean isSavedByUser(String userId) {
         return savedBy != null && savedBy.containsKey(userId);
     }
-}
\ No newline at end of file
+
+    public Long getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Long likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public Long getCommentCount() {
+        return commentCount;
+    }
+
+    public void setCommentCount(Long commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public Long getSaveCount() {
+        return saveCount;
+    }
+
+    public void setSaveCount(Long saveCount) {
+        this.saveCount = saveCount;
+    }
+
+    public String getFirstImageUrl() {
+        return firstImageUrl;
+    }
+
+    public void setFirstImageUrl(String firstImageUrl) {
+        this.firstImageUrl = firstImageUrl;
+    }
+
+    // Counts work for both full posts (maps) and summaries (counters)
+    @Exclude
+    public long getLikeTotal() {
+        if (likeCount != null) return likeCount;
+        return likedBy != null ? likedBy.size() : 0;
+    }
+
+    @Exclude
+    public long getSaveTotal() {
+        if (saveCount != null) return saveCount;
+        return savedBy != null ? savedBy.size() : 0;
+    }
+
+    @Exclude
+    public long getCommentTotal() {
+        if (commentCount != null) return commentCount;
+        return comments != null ? comments.size() : 0;
+    }
+
+    // Summaries arrive without likedBy/savedBy; they are filled in for the viewer only
+    @Exclude
+    public boolean isViewerStateLoaded() {
+        return likedBy != null && savedBy != null;
+    }
+
+    // Callers pass the new state after reading the previous one, so this is always a change
+    public void applyLike(String userId, boolean liked) {
+        long total = getLikeTotal();
+        if (likedBy == null) likedBy = new HashMap<>();
+
+        if (liked) likedBy.put(userId, true);
+        else likedBy.remove(userId);
+        likeCount = Math.max(0, total + (liked ? 1 : -1));
+    }
+
+    public void applySave(String userId, boolean saved) {
+        long total = getSaveTotal();
+        if (savedBy == null) savedBy = new HashMap<>();
+
+        if (saved) savedBy.put(userId, true);
+        else savedBy.remove(userId);
+        saveCount = Math.max(0, total + (saved ? 1 : -1));
+    }
+}
@@ -3,6 +3,8 @@ package com.example.bay.model;
 import android.os.Parcel;
 import android.os.Parcelable;
 
+import java.util.Locale;
+
 public class Review implements Parcelable {
     private String reviewId;
     private String itemId;
@@ -11,6 +13,8 @@ public class Review implements Parcelable {
     private float rating;
     private Long createdAt;
     private Long updatedAt;
+    // "{itemId}_{createdAt zero-padded}" so one orderByChild query can page an item's reviews by date
+    private String itemCreatedAt;
 
     public Review() {
         // Default constructor required for Firebase
@@ -25,6 +29,13 @@ public class Review implements Parcelable {
         this.rating = rating;
         this.createdAt = System.currentTimeMillis();
         this.updatedAt = System.currentTimeMillis();
+        this.itemCreatedAt = itemCreatedAtKey(itemId, createdAt);
+    }
+
+    // Sort key for reviews of one item; fixed width so string order matches time order
+    public static String itemCreatedAtKey(String itemId, Long createdAt) {
+        if (itemId == null) return null;
+        return itemId + "_" + String.format(Locale.US, "%013d", createdAt != null ? createdAt : 0L);
     }
 
     protected Review(Parcel in) {
@@ -43,6 +54,7 @@ public class Review implements Parcelable {
         } else {
             updatedAt = in.readLong();
         }
+        itemCreatedAt = in.readString();
     }
 
     public static final Creator<Review> CREATOR = new Creator<Review>() {
@@ -79,6 +91,9 @@ public class Review implements Parcelable {
     public Long getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(Long updatedAt) { this.updatedAt = updatedAt; }
 
+    public String getItemCreatedAt() { return itemCreatedAt; }
+    public void setItemCreatedAt(String itemCreatedAt) { this.itemCreatedAt = itemCreatedAt; }
+
     @Override
     public int describeContents() {
         return 0;
@@ -103,5 +118,6 @@ public class Review implements Parcelable {
             dest.writeByte((byte) 1);
             dest.writeLong(updatedAt);
         }
+        dest.writeString(itemCreatedAt);
     }
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.bay.model;
+
+import com.google.firebase.database.Exclude;
+
+/**
+ * Running rating aggregate for one shopping item, stored at reviewStats/{itemId}.
+ * Updated in a transaction on every review write so readers never scan the reviews.
+ */
+public class ReviewStats {
+    private double sum;
+    private long count;
+    // Histogram of rounded ratings; named fields because numeric keys read back as a list
+    private long star1;
+    private long star2;
+    private long star3;
+    private long star4;
+    private long star5;
+
+    public ReviewStats() {
+        // Default constructor required for Firebase
+    }
+
+    // Removes `oldRating` (if any) and adds `newRating` (if any); pass null for create or delete
+    public void apply(Float oldRating, Float newRating) {
+        if (oldRating != null) {
+            sum = Math.max(0, sum - oldRating);
+            count = Math.max(0, count - 1);
+            addToBucket(oldRating, -1);
+        }
+        if (newRating != null) {
+            sum += newRating;
+            count++;
+            addToBucket(newRating, 1);
+        }
+        if (count == 0) {
+            sum = 0;
+        }
+    }
+
+    @Exclude
+    public float getAverage() {
+        return count > 0 ? (float) (sum / count) : 0f;
+    }
+
+    @Exclude
+    public long getStarCount(int stars) {
+        switch (stars) {
+            case 1: return star1;
+            case 2: return star2;
+            case 3: return star3;
+            case 4: return star4;
+            case 5: return star5;
+            default: return 0;
+        }
+    }
+
+    private void addToBucket(float rating, int delta) {
+        int bucket = Math.max(1, Math.min(5, Math.round(rating)));
+        switch (bucket) {
+            case 1: star1 = Math.max(0, star1 + delta); break;
+            case 2: star2 = Math.max(0, star2 + delta); break;
+            case 3: star3 = Math.max(0, star3 + delta); break;
+            case 4: star4 = Math.max(0, star4 + delta); break;
+            default: star5 = Math.max(0, star5 + delta); break;
+        }
+    }
+
+    // Getters and Setters
+    public double getSum() { return sum; }
+    public void setSum(double sum) { this.sum = sum; }
+
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+
+    public long getStar1() { return star1; }
+    public void setStar1(long star1) { this.star1 = star1; }
+
+    public long getStar2() { return star2; }
+    public void setStar2(long star2) { this.star2 = star2; }
+
+    public long getStar3() { return star3; }
+    public void setStar3(long star3) { this.star3 = star3; }
+
+    public long getStar4() { return star4; }
+    public void setStar4(long star4) { this.star4 = star4; }
+
+    public long getStar5() { return star5; }
+    public void setStar5(long star5) { this.star5 = star5; }
+}
@@ -1,29 +1,65 @@
 package com.example.bay.repository;
 
+import android.util.Log;
+
 import androidx.annotation.NonNull;
 
 import com.example.bay.model.Chat;
 import com.example.bay.model.Message;
+import com.example.bay.model.User;
+import com.example.bay.util.BoundedParallelLoader;
 import com.example.bay.util.FirebaseDBHelper;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.Query;
 import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ChatRepository {
 
+    private static final String TAG = "ChatRepository";
+    private static final String CHAT_PARTNERS_MIGRATION = "chatPartners";
+    private static final String INBOX_MIGRATION = "inboxSummaries";
+    private static final String LEGACY_UNREAD_COUNTS = "unread-counts";
+    private static final int BACKFILL_PARALLEL = 4;
+
     public interface ChatCallback<T> {
         void onSuccess(T result);
         void onError(String error);
     }
 
+    public interface MessageEventListener {
+        void onMessageAdded(Message message);
+        void onMessageChanged(Message message);
+        void onMessageRemoved(String messageId);
+        void onError(String error);
+    }
+
+    // Handle for a live message listener; call remove() when the screen goes away
+    public static class MessageSubscription {
+        private final Query query;
+        private final ChildEventListener listener;
+
+        MessageSubscription(Query query, ChildEventListener listener) {
+            this.query = query;
+            this.listener = listener;
+        }
+
+        public void remove() {
+            query.removeEventListener(listener);
+        }
+    }
+
     public void getOrCreateChat(String userId1, String userId2, ChatCallback<Chat> callback) {
         String chatId = generateChatId(userId1, userId2);
 
@@ -35,18 +71,38 @@ public class ChatRepository {
                     if (chat != null) {
                         chat.setChatId(chatId);
                         callback.onSuccess(chat);
+                    } else {
+                        callback.onError("Unreadable chat " + chatId);
                     }
                 } else {
                     Chat newChat = new Chat(userId1, userId2);
                     newChat.setChatId(chatId);
 
-                    FirebaseDBHelper.getChatRef(chatId).setValue(newChat.toMap())
-                            .addOnSuccessListener(aVoid -> {
-                                FirebaseDBHelper.getUserChatsRef(userId1).child(chatId).setValue(true);
-                                FirebaseDBHelper.getUserChatsRef(userId2).child(chatId).setValue(true);
-                                callback.onSuccess(newChat);
-                            })
-                            .addOnFailureListener(e -> callback.onError(e.getMessage()));
+                    List<String> participants = new ArrayList<>();
+                    participants.add(userId1);
+                    participants.add(userId2);
+
+                    UserProfileCache.getInstance().getUsers(participants, new UserRepository.UserCallback<Map<String, User>>() {
+                        @Override
+                        public void onSuccess(Map<String, User> users) {
+                            // Chat, both inbox entries and the partner index in one write
+                            Map<String, Object> updates = new HashMap<>();
+                            updates.put("chats/" + chatId, newChat.toMap());
+                            putInboxEntry(updates, userId1, chatId, newChat, userId2, users.get(userId2));
+                            putInboxEntry(updates, userId2, chatId, newChat, userId1, users.get(userId1));
+                            updates.put("chat-partners/" + userId1 + "/" + userId2, chatId);
+                            updates.put("chat-partners/" + userId2 + "/" + userId1, chatId);
+
+                            FirebaseDBHelper.getDatabase().getReference().updateChildren(updates)
+                                    .addOnSuccessListener(aVoid -> callback.onSuccess(newChat))
+                                    .addOnFailureListener(e -> callback.onError(e.getMessage()));
+                        }
+
+                        @Override
+                        public void onError(String errorMsg) {
+                            callback.onError(errorMsg);
+                        }
+                    });
                 }
             }
 
@@ -63,115 +119,334 @@ public class ChatRepository {
 
         if (messageId != null) {
             message.setMessageId(messageId);
-            messagesRef.child(messageId).setValue(message.toMap())
-                    .addOnSuccessListener(aVoid -> {
-                        updateChatLastMessage(chatId, message);
-                        updateUnreadCount(chatId, message.getReceiverId());
 
+            String senderId = message.getSenderId();
+            String receiverId = message.getReceiverId();
+
+            // The message, the chat summary and both inbox entries land together
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("messages/" + chatId + "/" + messageId, message.toMap());
+            putLastMessage(updates, "chats/" + chatId + "/", message);
+            putLastMessage(updates, "user-chats/" + senderId + "/" + chatId + "/", message);
+            putLastMessage(updates, "user-chats/" + receiverId + "/" + chatId + "/", message);
+            updates.put("user-chats/" + senderId + "/" + chatId + "/partnerId", receiverId);
+            updates.put("user-chats/" + receiverId + "/" + chatId + "/partnerId", senderId);
+            updates.put("user-chats/" + receiverId + "/" + chatId + "/unreadCount", ServerValue.increment(1));
+
+            FirebaseDBHelper.getDatabase().getReference().updateChildren(updates)
+                    .addOnSuccessListener(aVoid -> {
                         sendFCMPushNotification(message);
 
                         callback.onSuccess(messageId);
                     })
                     .addOnFailureListener(e -> callback.onError(e.getMessage()));
+        } else {
+            callback.onError("Could not generate a message id");
         }
     }
 
-    private void updateChatLastMessage(String chatId, Message message) {
+    private static void putLastMessage(Map<String, Object> updates, String prefix, Message message) {
+        updates.put(prefix + "lastMessage", message.getText());
+        updates.put(prefix + "lastMessageType", message.getType());
+        updates.put(prefix + "lastMessageSenderId", message.getSenderId());
+        updates.put(prefix + "lastMessageTime", ServerValue.TIMESTAMP);
+    }
+
+    // user-chats/{userId}/{chatId}: everything the inbox row shows, so the list needs no per-row reads
+    private static void putInboxEntry(Map<String, Object> updates, String userId, String chatId,
+                                      Chat chat, String partnerId, User partner) {
+        String prefix = "user-chats/" + userId + "/" + chatId + "/";
+        updates.put(prefix + "user1Id", chat.getUser1Id());
+        updates.put(prefix + "user2Id", chat.getUser2Id());
+        updates.put(prefix + "lastMessage", chat.getLastMessage());
+        updates.put(prefix + "lastMessageType", chat.getLastMessageType());
+        updates.put(prefix + "lastMessageSenderId", chat.getLastMessageSenderId());
+        updates.put(prefix + "lastMessageTime",
+                chat.getLastMessageTime() > 0 ? chat.getLastMessageTime() : ServerValue.TIMESTAMP);
+        putPartner(updates, prefix, partnerId, partner);
+    }
+
+    private static void putPartner(Map<String, Object> updates, String prefix, String partnerId, User partner) {
+        updates.put(prefix + "partnerId", partnerId);
+        if (partner != null) {
+            updates.put(prefix + "partnerName", displayName(partner));
+            updates.put(prefix + "partnerProfileImageUrl", partner.getProfileImageUrl());
+        }
+    }
+
+    private static String displayName(User user) {
+        String firstName = user.getFirst_name() != null ? user.getFirst_name() : "";
+        String lastName = user.getLast_name() != null ? user.getLast_name() : "";
+        return (firstName + " " + lastName).trim();
+    }
+
+    // Keeps the partner name/avatar on this user's inbox entry current; called when the chat is opened
+    public void refreshPartnerSnapshot(String userId, String chatId, String partnerId, User partner) {
+        if (userId == null || chatId == null || partner == null) return;
+
         Map<String, Object> updates = new HashMap<>();
-        updates.put("lastMessage", message.getText());
-        updates.put("lastMessageType", message.getType());
-        updates.put("lastMessageSenderId", message.getSenderId());
-        updates.put("lastMessageTime", ServerValue.TIMESTAMP);
+        putPartner(updates, "", partnerId, partner);
+        FirebaseDBHelper.getUserChatsRef(userId).child(chatId).updateChildren(updates);
+    }
 
-        FirebaseDBHelper.getChatRef(chatId).updateChildren(updates);
+    // One write however many messages are unread: move this user's read watermark and clear the counter
+    public void markMessagesAsRead(String chatId, String userId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("chats/" + chatId + "/lastRead/" + userId, ServerValue.TIMESTAMP);
+        updates.put("user-chats/" + userId + "/" + chatId + "/unreadCount", 0);
+        FirebaseDBHelper.batchUpdate(updates, null);
     }
 
-    private void updateUnreadCount(String chatId, String receiverId) {
-        DatabaseReference unreadRef = FirebaseDBHelper.getUnreadCountRef(receiverId, chatId);
-        unreadRef.addListenerForSingleValueEvent(new ValueEventListener() {
+    // ✅ Migration: build chat-partners/{userId} from the user's existing chats, once per user
+    public void backfillChatPartnersIfNeeded(String userId) {
+        if (userId == null) return;
+
+        DatabaseReference doneRef = FirebaseDBHelper.getMigrationRef(CHAT_PARTNERS_MIGRATION).child(userId);
+        doneRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                int currentCount = 0;
-                if (snapshot.exists()) {
-                    currentCount = snapshot.getValue(Integer.class);
+                if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) return;
+
+                FirebaseDBHelper.getUserChatsRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot userChats) {
+                        // Summarised inbox entries already name the partner; only legacy ones need the chat
+                        Map<String, Object> updates = new HashMap<>();
+                        List<String> legacyChatIds = new ArrayList<>();
+                        for (DataSnapshot child : userChats.getChildren()) {
+                            String partnerId = child.child("partnerId").getValue(String.class);
+                            if (partnerId != null) {
+                                updates.put("chat-partners/" + userId + "/" + partnerId, child.getKey());
+                            } else {
+                                legacyChatIds.add(child.getKey());
+                            }
+                        }
+
+                        BoundedParallelLoader.<String, String>loadAll(legacyChatIds, BACKFILL_PARALLEL,
+                                (chatId, sink) -> FirebaseDBHelper.getChatRef(chatId)
+                                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                                            @Override
+                                            public void onDataChange(@NonNull DataSnapshot chatSnapshot) {
+                                                Chat chat = chatSnapshot.getValue(Chat.class);
+                                                sink.onLoaded(chat != null ? chat.getChatPartnerId(userId) : null);
+                                            }
+
+                                            @Override
+                                            public void onCancelled(@NonNull DatabaseError error) {
+                                                sink.onLoaded(null);
+                                            }
+                                        }),
+                                partners -> {
+                                    for (Map.Entry<String, String> entry : partners.entrySet()) {
+                                        updates.put("chat-partners/" + userId + "/" + entry.getValue(), entry.getKey());
+                                    }
+                                    updates.put("migrations/" + CHAT_PARTNERS_MIGRATION + "/" + userId, true);
+                                    FirebaseDBHelper.batchUpdate(updates, new FirebaseDBHelper.BatchWriteCallback() {
+                                        @Override
+                                        public void onSuccess() {
+                                        }
+
+                                        @Override
+                                        public void onError(String error) {
+                                            Log.e(TAG, "Chat partners backfill write failed: " + error);
+                                        }
+                                    });
+                                });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Chat partners backfill failed: " + error.getMessage());
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Chat partners migration check failed: " + error.getMessage());
+            }
+        });
+    }
+
+    // Inbox entries, newest first, from the one user-chats/{userId} node
+    public void getUserChats(String userId, ChatCallback<List<Chat>> callback) {
+        FirebaseDBHelper.getUserChatsRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<Chat> chats = new ArrayList<>();
+                for (DataSnapshot chatSnapshot : snapshot.getChildren()) {
+                    Chat chat = toInboxChat(chatSnapshot);
+                    if (chat != null) {
+                        chats.add(chat);
+                    }
                 }
-                unreadRef.setValue(currentCount + 1);
+
+                Collections.sort(chats, (c1, c2) ->
+                        Long.compare(c2.getLastMessageTime(), c1.getLastMessageTime()));
+                callback.onSuccess(chats);
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError(error.getMessage());
             }
         });
     }
 
-    public void markMessagesAsRead(String chatId, String userId) {
-        FirebaseDBHelper.getChatMessagesRef(chatId)
-                .orderByChild("receiverId").equalTo(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
+    // Legacy entries are a bare `true` until backfillInboxIfNeeded rewrites them
+    public static Chat toInboxChat(DataSnapshot snapshot) {
+        if (!snapshot.hasChildren()) return null;
+
+        Chat chat = snapshot.getValue(Chat.class);
+        if (chat != null) {
+            chat.setChatId(snapshot.getKey());
+        }
+        return chat;
+    }
+
+    // ✅ Migration: turn this user's legacy `true` inbox entries into full summaries, once per user
+    public void backfillInboxIfNeeded(String userId) {
+        if (userId == null) return;
+
+        DatabaseReference doneRef = FirebaseDBHelper.getMigrationRef(INBOX_MIGRATION).child(userId);
+        doneRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) return;
+
+                FirebaseDBHelper.getUserChatsRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
-                            Message message = messageSnapshot.getValue(Message.class);
-                            if (message != null && !message.isRead()) {
-                                messageSnapshot.getRef().child("read").setValue(true);
+                    public void onDataChange(@NonNull DataSnapshot userChats) {
+                        List<String> legacyChatIds = new ArrayList<>();
+                        Set<String> counted = new HashSet<>();
+                        for (DataSnapshot child : userChats.getChildren()) {
+                            if (!child.hasChild("partnerName")) {
+                                legacyChatIds.add(child.getKey());
+                            }
+                            if (child.hasChild("unreadCount")) {
+                                counted.add(child.getKey());
                             }
                         }
-                        FirebaseDBHelper.getUnreadCountRef(userId, chatId).setValue(0);
+                        backfillInbox(userId, legacyChatIds, counted);
                     }
 
                     @Override
                     public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Inbox backfill failed: " + error.getMessage());
                     }
                 });
-    }
+            }
 
-    public void getUserChats(String userId, ChatCallback<List<Chat>> callback) {
-        FirebaseDBHelper.getUserChatsRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<Chat> chats = new ArrayList<>();
-                List<String> chatIds = new ArrayList<>();
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Inbox migration check failed: " + error.getMessage());
+            }
+        });
+    }
 
-                for (DataSnapshot chatIdSnapshot : snapshot.getChildren()) {
-                    String chatId = chatIdSnapshot.getKey();
-                    chatIds.add(chatId);
-                }
+    // `counted` chats already have an inbox unreadCount that is newer than the legacy node
+    private void backfillInbox(String userId, List<String> chatIds, Set<String> counted) {
+        BoundedParallelLoader.<String, Chat>loadAll(chatIds, BACKFILL_PARALLEL,
+                (chatId, sink) -> FirebaseDBHelper.getChatRef(chatId)
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(@NonNull DataSnapshot chatSnapshot) {
+                                sink.onLoaded(chatSnapshot.getValue(Chat.class));
+                            }
 
-                if (chatIds.isEmpty()) {
-                    callback.onSuccess(chats);
-                    return;
-                }
+                            @Override
+                            public void onCancelled(@NonNull DatabaseError error) {
+                                sink.onLoaded(null);
+                            }
+                        }),
+                chats -> {
+                    List<String> partnerIds = new ArrayList<>();
+                    for (Chat chat : chats.values()) {
+                        partnerIds.add(chat.getChatPartnerId(userId));
+                    }
 
-                final int[] loadedCount = {0};
-                for (String chatId : chatIds) {
-                    FirebaseDBHelper.getChatRef(chatId).addListenerForSingleValueEvent(
-                            new ValueEventListener() {
-                                @Override
-                                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                                    Chat chat = snapshot.getValue(Chat.class);
-                                    if (chat != null) {
-                                        chat.setChatId(chatId);
-                                        chats.add(chat);
-
-                                        Collections.sort(chats, (c1, c2) ->
-                                                Long.compare(c2.getLastMessageTime(), c1.getLastMessageTime()));
-                                    }
+                    UserProfileCache.getInstance().getUsers(partnerIds, new UserRepository.UserCallback<Map<String, User>>() {
+                        @Override
+                        public void onSuccess(Map<String, User> partners) {
+                            // Unread counts used to live in their own node
+                            FirebaseDBHelper.getDatabase().getReference(LEGACY_UNREAD_COUNTS).child(userId)
+                                    .addListenerForSingleValueEvent(new ValueEventListener() {
+                                        @Override
+                                        public void onDataChange(@NonNull DataSnapshot unreadCounts) {
+                                            // Inbox entries, counter resets and the done flag in one write
+                                            Map<String, Object> updates = new HashMap<>();
+                                            for (Map.Entry<String, Chat> entry : chats.entrySet()) {
+                                                String chatId = entry.getKey();
+                                                Chat chat = entry.getValue();
+                                                String partnerId = chat.getChatPartnerId(userId);
+                                                putInboxEntry(updates, userId, chatId, chat, partnerId, partners.get(partnerId));
+
+                                                if (!counted.contains(chatId)) {
+                                                    Integer unread = unreadCounts.child(chatId).getValue(Integer.class);
+                                                    updates.put("user-chats/" + userId + "/" + chatId + "/unreadCount",
+                                                            unread != null ? unread : 0);
+                                                }
+                                            }
+                                            updates.put("migrations/" + INBOX_MIGRATION + "/" + userId, true);
+                                            FirebaseDBHelper.batchUpdate(updates, new FirebaseDBHelper.BatchWriteCallback() {
+                                                @Override
+                                                public void onSuccess() {
+                                                    Log.d(TAG, "Backfilled " + chats.size() + " inbox entries");
+                                                }
+
+                                                @Override
+                                                public void onError(String error) {
+                                                    Log.e(TAG, "Inbox backfill write failed: " + error);
+                                                }
+                                            });
+                                        }
+
+                                        @Override
+                                        public void onCancelled(@NonNull DatabaseError error) {
+                                            Log.e(TAG, "Failed to read legacy unread counts: " + error.getMessage());
+                                        }
+                                    });
+                        }
 
-                                    loadedCount[0]++;
-                                    if (loadedCount[0] == chatIds.size()) {
-                                        callback.onSuccess(new ArrayList<>(chats));
-                                    }
-                                }
+                        @Override
+                        public void onError(String errorMsg) {
+                            Log.e(TAG, "Failed to load partner profiles for inbox backfill: " + errorMsg);
+                        }
+                    });
+                });
+    }
 
-                                @Override
-                                public void onCancelled(@NonNull DatabaseError error) {
-                                    loadedCount[0]++;
-                                    if (loadedCount[0] == chatIds.size()) {
-                                        callback.onSuccess(new ArrayList<>(chats));
-                                    }
-                                }
-                            });
+    // Newest `limit` messages of a chat, oldest first
+    public void getRecentMessages(String chatId, int limit, ChatCallback<List<Message>> callback) {
+        Query query = FirebaseDBHelper.getChatMessagesRef(chatId)
+                .orderByChild("timestamp")
+                .limitToLast(limit);
+        readMessages(query, null, callback);
+    }
+
+    // Up to `limit` messages sent before `oldest`, oldest first
+    public void getOlderMessages(String chatId, Message oldest, int limit, ChatCallback<List<Message>> callback) {
+        // endAt is inclusive, so ask for one extra and drop `oldest` itself
+        Query query = FirebaseDBHelper.getChatMessagesRef(chatId)
+                .orderByChild("timestamp")
+                .endAt(oldest.getTimestamp(), oldest.getMessageId())
+                .limitToLast(limit + 1);
+        readMessages(query, oldest.getMessageId(), callback);
+    }
+
+    private void readMessages(Query query, String skipMessageId, ChatCallback<List<Message>> callback) {
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                List<Message> messages = new ArrayList<>();
+                for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
+                    if (messageSnapshot.getKey() != null && messageSnapshot.getKey().equals(skipMessageId)) continue;
+                    Message message = toMessage(messageSnapshot);
+                    if (message != null) {
+                        messages.add(message);
+                    }
                 }
+                callback.onSuccess(messages);
             }
 
             @Override
@@ -181,30 +456,72 @@ public class ChatRepository {
         });
     }
 
-    public void getChatMessages(String chatId, ChatCallback<List<Message>> callback) {
+    // Pulls the newest message into the persistent cache, e.g. when a push says it exists
+    public void prefetchLatestMessage(String chatId) {
         FirebaseDBHelper.getChatMessagesRef(chatId)
                 .orderByChild("timestamp")
-                .addValueEventListener(new ValueEventListener() {
+                .limitToLast(1)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<Message> messages = new ArrayList<>();
-                        for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
-                            Message message = messageSnapshot.getValue(Message.class);
-                            if (message != null) {
-                                message.setMessageId(messageSnapshot.getKey());
-                                messages.add(message);
-                            }
-                        }
-                        callback.onSuccess(messages);
                     }
 
                     @Override
                     public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onError(error.getMessage());
                     }
                 });
     }
 
+    // Child events for messages sent at or after `sinceTimestamp`; the boundary message may be re-delivered
+    public MessageSubscription listenForNewMessages(String chatId, long sinceTimestamp, MessageEventListener listener) {
+        Query query = FirebaseDBHelper.getChatMessagesRef(chatId)
+                .orderByChild("timestamp")
+                .startAt(sinceTimestamp);
+
+        ChildEventListener childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                Message message = toMessage(snapshot);
+                if (message != null) {
+                    listener.onMessageAdded(message);
+                }
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                Message message = toMessage(snapshot);
+                if (message != null) {
+                    listener.onMessageChanged(message);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                listener.onMessageRemoved(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onError(error.getMessage());
+            }
+        };
+
+        query.addChildEventListener(childListener);
+        return new MessageSubscription(query, childListener);
+    }
+
+    private static Message toMessage(DataSnapshot snapshot) {
+        Message message = snapshot.getValue(Message.class);
+        if (message != null) {
+            message.setMessageId(snapshot.getKey());
+        }
+        return message;
+    }
+
     public void setTypingStatus(String chatId, String userId, boolean isTyping) {
         FirebaseDBHelper.getTypingRef(chatId).child(userId).setValue(isTyping);
     }
@@ -230,10 +547,9 @@ public class ChatRepository {
     }
 
     private void sendFCMPushNotification(Message message) {
-        UserRepository userRepository = new UserRepository();
-        userRepository.getUserById(message.getSenderId(), new UserRepository.UserCallback<com.example.bay.model.User>() {
+        UserProfileCache.getInstance().getUser(message.getSenderId(), new UserRepository.UserCallback<User>() {
             @Override
-            public void onSuccess(com.example.bay.model.User sender) {
+            public void onSuccess(User sender) {
                 String senderName = sender.getFirst_name() + " " + sender.getLast_name();
                 String notificationMessage = message.getText();
 
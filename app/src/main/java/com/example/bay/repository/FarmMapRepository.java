@@ -3,10 +3,14 @@ package com.example.bay.repository;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
 
 import com.example.bay.model.Location;
 import com.example.bay.service.FarmMapService;
+import com.example.bay.util.FirebaseLiveMirror;
 import com.example.bay.util.RetrofitClient;
+import com.example.bay.util.StreamFilter;
+import com.example.bay.util.StreamingMapCall;
 
 import java.util.Map;
 
@@ -17,6 +21,8 @@ import retrofit2.Retrofit;
 
 public class FarmMapRepository {
 
+    private static FirebaseLiveMirror<Location> liveLocations;
+
     private final FarmMapService service;
 
     public FarmMapRepository() {
@@ -24,6 +30,16 @@ public class FarmMapRepository {
         service = retrofit.create(FarmMapService.class);
     }
 
+    // ✅ Shared mirror of locations kept current by the REST event stream
+    public LiveData<Map<String, Location>> observeLocations() {
+        synchronized (FarmMapRepository.class) {
+            if (liveLocations == null) {
+                liveLocations = new FirebaseLiveMirror<>("locations", Location.class, null);
+            }
+            return liveLocations;
+        }
+    }
+
     // ✅ Get all locations
     public void getAllLocations(LocationCallback<Map<String, Location>> callback) {
         service.getAllLocations().enqueue(new Callback<Map<String, Location>>() {
@@ -43,6 +59,21 @@ public class FarmMapRepository {
         });
     }
 
+    // ✅ Get locations, dropping the ones rejected by the filter while the payload is parsed
+    public void getLocations(StreamFilter<Location> filter, LocationCallback<Map<String, Location>> callback) {
+        service.streamLocations().enqueue(filter, new StreamingMapCall.Callback<Location>() {
+            @Override
+            public void onSuccess(Map<String, Location> result) {
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+                callback.onFailure("Failed to load locations: " + errorMsg);
+            }
+        });
+    }
+
     // ✅ Get location by ID
     public void getLocationById(String id, LocationCallback<Location> callback) {
         service.getLocationById(id).enqueue(new Callback<Location>() {
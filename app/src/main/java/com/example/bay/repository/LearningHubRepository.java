@@ -83,7 +83,7 @@ public class LearningHubRepository {
             return;
         }
 
-        apiService.getCardsByCategory("category", category).enqueue(new Callback<Map<String, LearninghubCard>>() {
+        apiService.getCardsByCategory(LearningHubService.quote("category"), LearningHubService.quote(category)).enqueue(new Callback<Map<String, LearninghubCard>>() {
             @Override
             public void onResponse(@NonNull Call<Map<String, LearninghubCard>> call,
                                    @NonNull Response<Map<String, LearninghubCard>> response) {
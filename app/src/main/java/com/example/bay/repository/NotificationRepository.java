@@ -8,13 +8,24 @@ import com.example.bay.util.FirebaseDBHelper;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class NotificationRepository {
 
+    private static final String UNREAD_COUNT_MIGRATION = "notificationCounts";
+    private static final long SENDER_SNAPSHOT_TTL_MS = 7L * 24 * 60 * 60 * 1000;
+
     public interface NotificationCallback<T> {
         void onSuccess(T result);
         void onError(String error);
@@ -25,13 +36,11 @@ public class NotificationRepository {
                                      String message, String chatId, String messageId,
                                      NotificationCallback<Boolean> callback) {
 
-        UserRepository userRepository = new UserRepository();
-
         // Get sender info for notification title
-        userRepository.getUserById(senderId, new UserRepository.UserCallback<User>() {
+        UserProfileCache.getInstance().getUser(senderId, new UserRepository.UserCallback<User>() {
             @Override
             public void onSuccess(User sender) {
-                String senderName = sender.getFirst_name() + " " + sender.getLast_name();
+                String senderName = displayName(sender);
 
                 // Create notification
                 Notification notification = new Notification(
@@ -43,14 +52,22 @@ public class NotificationRepository {
                         chatId,
                         messageId
                 );
+                notification.setSenderName(senderName);
+                notification.setSenderProfileImageUrl(sender.getProfileImageUrl());
+                notification.setSenderSnapshotAt(System.currentTimeMillis());
 
-                // Save notification to database
+                // Save notification and bump the receiver's unread counter in one write
                 DatabaseReference notificationsRef = FirebaseDBHelper.getUserNotificationsRef(receiverId);
                 String notificationId = notificationsRef.push().getKey();
 
                 if (notificationId != null) {
                     notification.setNotificationId(notificationId);
-                    notificationsRef.child(notificationId).setValue(notification.toMap())
+
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("notifications/" + receiverId + "/" + notificationId, notification.toMap());
+                    updates.put("notification-counts/" + receiverId, ServerValue.increment(1));
+
+                    FirebaseDBHelper.getDatabase().getReference().updateChildren(updates)
                             .addOnSuccessListener(aVoid -> {
                                 // Send FCM push notification
                                 sendFCMPushNotification(receiverId, senderName, message, chatId);
@@ -95,7 +112,7 @@ public class NotificationRepository {
     private void sendFCMToDevice(String deviceToken, String senderName,
                                  String message, String chatId) {
         // This should be implemented with your FCM server
-        // For now, we'll just store it in the database for the NotificationService to pick up
+        // For now, we'll just store it in the database for MyFirebaseMessagingService to pick up
 
         DatabaseReference fcmQueueRef = FirebaseDBHelper.getFcmQueueRef();
         String fcmId = fcmQueueRef.push().getKey();
@@ -131,9 +148,10 @@ public class NotificationRepository {
                             Notification notification = notifSnapshot.getValue(Notification.class);
                             if (notification != null) {
                                 notification.setNotificationId(notifSnapshot.getKey());
-                                notifications.add(0, notification); // Add to beginning for reverse chronological order
+                                notifications.add(notification);
                             }
                         }
+                        Collections.reverse(notifications); // Reverse chronological order
                         callback.onSuccess(notifications);
                     }
 
@@ -144,39 +162,60 @@ public class NotificationRepository {
                 });
     }
 
-    // Mark notification as read
+    // Mark notification as read; the counter only drops if this call flipped the flag
     public void markNotificationAsRead(String userId, String notificationId,
                                        NotificationCallback<Boolean> callback) {
+        boolean[] flipped = new boolean[1];
+
         FirebaseDBHelper.getNotificationRef(userId, notificationId)
                 .child("read")
-                .setValue(true)
-                .addOnSuccessListener(aVoid -> callback.onSuccess(true))
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+                .runTransaction(new Transaction.Handler() {
+                    @NonNull
+                    @Override
+                    public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                        flipped[0] = false;
+                        Boolean read = currentData.getValue(Boolean.class);
+                        if (Boolean.TRUE.equals(read)) {
+                            return Transaction.abort();
+                        }
+                        // A null first guess is an uncached value; the no-op lets the server retry us
+                        if (read != null) {
+                            currentData.setValue(true);
+                            flipped[0] = true;
+                        }
+                        return Transaction.success(currentData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                        if (error != null) {
+                            callback.onError(error.getMessage());
+                            return;
+                        }
+                        if (committed && flipped[0]) {
+                            adjustUnreadCount(userId, -1);
+                        }
+                        callback.onSuccess(true);
+                    }
+                });
     }
 
     // Mark all notifications as read
     public void markAllNotificationsAsRead(String userId, NotificationCallback<Boolean> callback) {
         FirebaseDBHelper.getUserNotificationsRef(userId)
+                .orderByChild("read")
+                .equalTo(false)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<String> notificationIds = new ArrayList<>();
+                        // Flags and counter go out in one write so they cannot drift apart
+                        Map<String, Object> updates = new HashMap<>();
                         for (DataSnapshot notifSnapshot : snapshot.getChildren()) {
-                            notificationIds.add(notifSnapshot.getKey());
-                        }
-
-                        if (notificationIds.isEmpty()) {
-                            callback.onSuccess(true);
-                            return;
+                            updates.put("notifications/" + userId + "/" + notifSnapshot.getKey() + "/read", true);
                         }
+                        updates.put("notification-counts/" + userId, 0);
 
-                        // Update each notification
-                        for (String notifId : notificationIds) {
-                            FirebaseDBHelper.getNotificationRef(userId, notifId)
-                                    .child("read")
-                                    .setValue(true);
-                        }
-                        callback.onSuccess(true);
+                        FirebaseDBHelper.batchUpdate(updates, batchCallback(callback));
                     }
 
                     @Override
@@ -186,33 +225,65 @@ public class NotificationRepository {
                 });
     }
 
-    // Delete notification
+    // Delete notification; an unread one takes its count with it
     public void deleteNotification(String userId, String notificationId,
                                    NotificationCallback<Boolean> callback) {
+        boolean[] wasUnread = new boolean[1];
+
         FirebaseDBHelper.getNotificationRef(userId, notificationId)
-                .removeValue()
-                .addOnSuccessListener(aVoid -> callback.onSuccess(true))
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+                .runTransaction(new Transaction.Handler() {
+                    @NonNull
+                    @Override
+                    public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                        wasUnread[0] = Boolean.FALSE.equals(currentData.child("read").getValue(Boolean.class));
+                        currentData.setValue(null);
+                        return Transaction.success(currentData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                        if (error != null) {
+                            callback.onError(error.getMessage());
+                            return;
+                        }
+                        if (committed && wasUnread[0]) {
+                            adjustUnreadCount(userId, -1);
+                        }
+                        callback.onSuccess(true);
+                    }
+                });
     }
 
     // Delete all notifications
     public void deleteAllNotifications(String userId, NotificationCallback<Boolean> callback) {
-        FirebaseDBHelper.getUserNotificationsRef(userId)
-                .removeValue()
-                .addOnSuccessListener(aVoid -> callback.onSuccess(true))
-                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("notifications/" + userId, null);
+        updates.put("notification-counts/" + userId, 0);
+
+        FirebaseDBHelper.batchUpdate(updates, batchCallback(callback));
+    }
+
+    private static FirebaseDBHelper.BatchWriteCallback batchCallback(NotificationCallback<Boolean> callback) {
+        return new FirebaseDBHelper.BatchWriteCallback() {
+            @Override
+            public void onSuccess() {
+                callback.onSuccess(true);
+            }
+
+            @Override
+            public void onError(String error) {
+                callback.onError(error);
+            }
+        };
     }
 
-    // Get unread notification count
+    // Get unread notification count: one integer, no scan of the notifications
     public void getUnreadNotificationCount(String userId, NotificationCallback<Integer> callback) {
-        FirebaseDBHelper.getUserNotificationsRef(userId)
-                .orderByChild("read")
-                .equalTo(false)
+        FirebaseDBHelper.getNotificationUnreadCountRef(userId)
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int count = (int) snapshot.getChildrenCount();
-                        callback.onSuccess(count);
+                        callback.onSuccess(toUnreadCount(snapshot));
                     }
 
                     @Override
@@ -222,6 +293,112 @@ public class NotificationRepository {
                 });
     }
 
+    public static int toUnreadCount(DataSnapshot snapshot) {
+        Long count = snapshot.getValue(Long.class);
+        return count != null ? (int) Math.max(0, count) : 0;
+    }
+
+    // ✅ Re-snapshot sender name/avatar on notifications written before snapshots existed or older
+    // than SENDER_SNAPSHOT_TTL_MS; one profile load per sender and one batched write for all rows
+    public void refreshStaleSenderSnapshots(String userId, List<Notification> notifications) {
+        long staleBefore = System.currentTimeMillis() - SENDER_SNAPSHOT_TTL_MS;
+        List<Notification> stale = new ArrayList<>();
+        Set<String> senderIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getSenderId() == null || notification.getSenderId().isEmpty()) continue;
+            if (notification.getSenderSnapshotAt() < staleBefore) {
+                stale.add(notification);
+                senderIds.add(notification.getSenderId());
+            }
+        }
+        if (stale.isEmpty()) return;
+
+        UserProfileCache.getInstance().getUsers(senderIds, new UserRepository.UserCallback<Map<String, User>>() {
+            @Override
+            public void onSuccess(Map<String, User> senders) {
+                long now = System.currentTimeMillis();
+                Map<String, Object> updates = new HashMap<>();
+                for (Notification notification : stale) {
+                    User sender = senders.get(notification.getSenderId());
+                    if (sender == null) continue;
+
+                    String prefix = "notifications/" + userId + "/" + notification.getNotificationId() + "/";
+                    String senderName = displayName(sender);
+                    updates.put(prefix + "senderName", senderName);
+                    updates.put(prefix + "senderProfileImageUrl", sender.getProfileImageUrl());
+                    updates.put(prefix + "senderSnapshotAt", now);
+                    if ("chat_message".equals(notification.getType())) {
+                        updates.put(prefix + "title", senderName);
+                    }
+                }
+                if (!updates.isEmpty()) {
+                    FirebaseDBHelper.batchUpdate(updates, null);
+                }
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+            }
+        });
+    }
+
+    private static String displayName(User user) {
+        String firstName = user.getFirst_name() != null ? user.getFirst_name() : "";
+        String lastName = user.getLast_name() != null ? user.getLast_name() : "";
+        return (firstName + " " + lastName).trim();
+    }
+
+    // Clamped at zero so a lost decrement race never shows a negative badge
+    private void adjustUnreadCount(String userId, int delta) {
+        FirebaseDBHelper.getNotificationUnreadCountRef(userId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                Long count = currentData.getValue(Long.class);
+                currentData.setValue(Math.max(0, (count != null ? count : 0) + delta));
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+            }
+        });
+    }
+
+    // ✅ Migration: seed notification-counts/{uid} from the unread notifications, once per user
+    public void backfillUnreadCountIfNeeded(String userId) {
+        if (userId == null) return;
+
+        DatabaseReference doneRef = FirebaseDBHelper.getMigrationRef(UNREAD_COUNT_MIGRATION).child(userId);
+        doneRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) return;
+
+                FirebaseDBHelper.getUserNotificationsRef(userId)
+                        .orderByChild("read")
+                        .equalTo(false)
+                        .addListenerForSingleValueEvent(new ValueEventListener() {
+                            @Override
+                            public void onDataChange(@NonNull DataSnapshot unread) {
+                                Map<String, Object> updates = new HashMap<>();
+                                updates.put("notification-counts/" + userId, unread.getChildrenCount());
+                                updates.put("migrations/" + UNREAD_COUNT_MIGRATION + "/" + userId, true);
+                                FirebaseDBHelper.getDatabase().getReference().updateChildren(updates);
+                            }
+
+                            @Override
+                            public void onCancelled(@NonNull DatabaseError error) {
+                            }
+                        });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+            }
+        });
+    }
+
     // FCM Notification model for queue
     static class FCMNotification {
         private String deviceToken;
@@ -8,13 +8,25 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.bay.model.PostCardItem;
 import com.example.bay.service.PostCardCommunityService;
+import com.example.bay.util.FirebaseDBHelper;
 import com.example.bay.util.RetrofitClient;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.ValueEventListener;
 
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -24,14 +36,20 @@ public class PostCardCommunityRepository {
 
     private static final String TAG = "PostCommunityRepo";
     private static final int PAGE_SIZE = 10;
+    private static final String ORDER_BY_CREATED_AT = "\"createdAt\"";
+    private static final String CREATED_AT_MIGRATION = "postCreatedAt";
 
     private final PostCardCommunityService service;
     private final MutableLiveData<List<PostCardItem>> pagedPostsLiveData = new MutableLiveData<>();
 
-    private final List<PostCardItem> allPosts = new ArrayList<>();
-    private int currentPage = 0;
+    private final List<PostCardItem> loadedPosts = new ArrayList<>();
+    private final Set<String> loadedIds = new HashSet<>();
+
+    // createdAt of the oldest post loaded so far; the next page ends here (inclusive)
+    private Long pageCursor = null;
     private boolean isLoading = false;
     private boolean hasLoadedOnce = false;
+    private boolean reachedEnd = false;
 
     public PostCardCommunityRepository() {
         service = RetrofitClient.getClient().create(PostCardCommunityService.class);
@@ -42,112 +60,172 @@ public class PostCardCommunityRepository {
     }
 
     public void loadInitialPosts() {
-        if (hasLoadedOnce && !allPosts.isEmpty()) {
-            currentPage = 1;
-            publishCurrentPage();
+        if (hasLoadedOnce && !loadedPosts.isEmpty()) {
+            publishLoadedPosts();
             return;
         }
-        fetchFromNetwork();
+
+        loadedPosts.clear();
+        loadedIds.clear();
+        pageCursor = null;
+        reachedEnd = false;
+        fetchPage();
     }
 
     public void loadMorePosts() {
-        if (isLoading) return;
-        if (allPosts.isEmpty()) return;
+        if (isLoading || reachedEnd) return;
+        if (loadedPosts.isEmpty()) return;
 
-        int maxPages = (int) Math.ceil(allPosts.size() / (double) PAGE_SIZE);
-        if (currentPage >= maxPages) return;
-
-        currentPage++;
-        publishCurrentPage();
+        fetchPage();
     }
 
     public boolean isLastPage() {
-        if (allPosts.isEmpty()) return true;
-        int maxPages = (int) Math.ceil(allPosts.size() / (double) PAGE_SIZE);
-        return currentPage >= maxPages;
+        return reachedEnd;
     }
 
-    private void fetchFromNetwork() {
+    private void fetchPage() {
         isLoading = true;
-        Log.d(TAG, "Fetching community posts from network");
+        Log.d(TAG, "Fetching community page ending at " + pageCursor);
+
+        // endAt is inclusive, so ask for one extra post to make up for the cursor post itself
+        int limit = pageCursor == null ? PAGE_SIZE : PAGE_SIZE + 1;
 
-        service.getAllPostCardItems().enqueue(new Callback<Map<String, PostCardItem>>() {
+        service.getPostCardItemsPage(ORDER_BY_CREATED_AT, pageCursor, limit)
+                .enqueue(new Callback<Map<String, PostCardItem>>() {
             @Override
             public void onResponse(@NonNull Call<Map<String, PostCardItem>> call,
                                    @NonNull Response<Map<String, PostCardItem>> response) {
 
                 isLoading = false;
 
-                if (!response.isSuccessful() || response.body() == null) {
-                    Log.e(TAG, "Response not successful or body is null");
-                    pagedPostsLiveData.postValue(new ArrayList<>());
+                if (!response.isSuccessful()) {
+                    Log.e(TAG, "Page response not successful: " + response.code());
+                    publishLoadedPosts();
                     return;
                 }
 
                 Map<String, PostCardItem> body = response.body();
-                Log.d(TAG, "Response map size: " + body.size());
+                List<PostCardItem> page = new ArrayList<>();
 
-                allPosts.clear();
+                if (body != null) {
+                    for (Map.Entry<String, PostCardItem> entry : body.entrySet()) {
+                        PostCardItem post = entry.getValue();
+                        if (post == null) continue;
 
-                for (Map.Entry<String, PostCardItem> entry : body.entrySet()) {
-                    String key = entry.getKey();
-                    PostCardItem post = entry.getValue();
+                        if (post.getItemId() == null || post.getItemId().isEmpty()) {
+                            post.setItemId(entry.getKey());
+                        }
 
-                    if (post == null) continue;
-
-                    if (post.getItemId() == null || post.getItemId().isEmpty()) {
-                        post.setItemId(key);
+                        page.add(post);
                     }
-
-                    allPosts.add(post);
                 }
 
-                // Sort by timestamp descending (ISO 8601 string works lexicographically)
-                Collections.sort(allPosts, new Comparator<PostCardItem>() {
+                // The REST API does not keep query order in the JSON object, so sort the page here
+                Collections.sort(page, new Comparator<PostCardItem>() {
                     @Override
                     public int compare(PostCardItem o1, PostCardItem o2) {
-                        String t1 = o1.getTimestamp();
-                        String t2 = o2.getTimestamp();
+                        return Long.compare(createdAtOf(o2), createdAtOf(o1));
+                    }
+                });
 
-                        if (t1 == null && t2 == null) return 0;
-                        if (t1 == null) return 1;
-                        if (t2 == null) return -1;
+                int added = 0;
+                for (PostCardItem post : page) {
+                    if (loadedIds.add(post.getItemId())) {
+                        loadedPosts.add(post);
+                        added++;
+                    }
+                }
 
-                        return t2.compareTo(t1);
+                Log.d(TAG, "Page size: " + page.size() + ", new posts: " + added);
+
+                if (!page.isEmpty()) {
+                    Long oldest = page.get(page.size() - 1).getCreatedAt();
+                    if (oldest == null || oldest.equals(pageCursor)) {
+                        // Posts without createdAt sort before every number and cannot be paged further
+                        reachedEnd = true;
                     }
-                });
+                    pageCursor = oldest;
+                }
+
+                if (page.size() < limit || added == 0) {
+                    reachedEnd = true;
+                }
 
                 hasLoadedOnce = true;
-                currentPage = 1;
-                publishCurrentPage();
+                publishLoadedPosts();
             }
 
             @Override
             public void onFailure(@NonNull Call<Map<String, PostCardItem>> call, @NonNull Throwable t) {
                 isLoading = false;
                 Log.e(TAG, "Network failure: " + t.getMessage(), t);
-                pagedPostsLiveData.postValue(new ArrayList<>());
+                publishLoadedPosts();
             }
         });
     }
 
-    private void publishCurrentPage() {
-        if (allPosts.isEmpty()) {
-            pagedPostsLiveData.postValue(new ArrayList<>());
-            return;
-        }
+    private static long createdAtOf(PostCardItem post) {
+        return createdAtOf(post.getCreatedAt(), post.getTimestamp());
+    }
 
-        int fromIndex = 0;
-        int toIndex = Math.min(currentPage * PAGE_SIZE, allPosts.size());
+    // Legacy posts only carry the string timestamp: epoch millis, or ISO-8601 in the oldest data.
+    // Unparseable ones get 0 so they still page, as the oldest posts.
+    static long createdAtOf(Long createdAt, String timestamp) {
+        if (createdAt != null) return createdAt;
+        if (timestamp == null || timestamp.isEmpty()) return 0L;
 
-        if (fromIndex >= toIndex) {
-            pagedPostsLiveData.postValue(new ArrayList<>());
-            return;
+        if (timestamp.matches("\\d+")) {
+            return Long.parseLong(timestamp);
         }
+        try {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            Date date = sdf.parse(timestamp);
+            return date != null ? date.getTime() : 0L;
+        } catch (ParseException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * One-time seed of createdAt on posts written before it existed. Keyset paging orders on
+     * createdAt, where a missing value sorts before every number and ends the feed early.
+     */
+    public static void seedCreatedAtIfNeeded() {
+        FirebaseDBHelper.claimMigration(CREATED_AT_MIGRATION, PostCardCommunityRepository::seedCreatedAt);
+    }
 
-        List<PostCardItem> subList = new ArrayList<>(allPosts.subList(fromIndex, toIndex));
-        pagedPostsLiveData.postValue(subList);
+    private static void seedCreatedAt() {
+        // endAt(null) on createdAt returns exactly the children that do not have it
+        FirebaseDBHelper.getPostCardItemsRef().orderByChild("createdAt").endAt(null)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot posts) {
+                        Map<String, Object> updates = new HashMap<>();
+                        for (DataSnapshot child : posts.getChildren()) {
+                            if (child.hasChild("createdAt")) continue;
+                            Object timestamp = child.child("timestamp").getValue();
+                            updates.put("postCardItems/" + child.getKey() + "/createdAt",
+                                    createdAtOf(null, timestamp != null ? timestamp.toString() : null));
+                        }
+                        updates.put("migrations/" + CREATED_AT_MIGRATION, true);
+
+                        FirebaseDBHelper.getDatabase().getReference().updateChildren(updates)
+                                .addOnSuccessListener(unused ->
+                                        Log.d(TAG, "Seeded createdAt on " + (updates.size() - 1) + " posts"))
+                                .addOnFailureListener(e ->
+                                        Log.e(TAG, "createdAt seed failed: " + e.getMessage()));
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to read posts for createdAt seed: " + error.getMessage());
+                    }
+                });
+    }
 
-        Log.d(TAG, "Publishing page " + currentPage + " (" + fromIndex + " - " + (toIndex - 1) + ")");
+    private void publishLoadedPosts() {
+        pagedPostsLiveData.postValue(new ArrayList<>(loadedPosts));
+        Log.d(TAG, "Publishing " + loadedPosts.size() + " posts, last page: " + reachedEnd);
     }
 }
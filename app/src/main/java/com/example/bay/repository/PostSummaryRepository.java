@@ -0,0 +1,265 @@
+package com.example.bay.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.bay.model.Comment;
+import com.example.bay.model.PostCardItem;
+import com.example.bay.util.FirebaseDBHelper;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps postSummaries/{postId} in step with postCardItems/{postId}.
+ * A summary holds the post fields shown in lists plus likeCount, commentCount, saveCount and
+ * firstImageUrl, so list screens never download likedBy/savedBy/comments. Every write that
+ * touches a post goes through one multi-path update so both nodes change atomically.
+ */
+public class PostSummaryRepository {
+
+    private static final String TAG = "PostSummaryRepo";
+    private static final String MIGRATION_NAME = "postSummaries";
+
+    private static final String POSTS = "postCardItems/";
+    private static final String SUMMARIES = "postSummaries/";
+
+    public interface ViewerStateCallback {
+        void onLoaded(PostCardItem post);
+    }
+
+    public Task<Void> createPost(String postId, Map<String, Object> postValues, PostCardItem post) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(POSTS + postId, postValues);
+        updates.put(SUMMARIES + postId, toSummary(post));
+        return FirebaseDBHelper.getDatabase().getReference().updateChildren(updates);
+    }
+
+    /** Applies a partial update to the post and mirrors the list-visible fields to its summary. */
+    public Task<Void> updatePost(String postId, Map<String, Object> postUpdates) {
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Object> entry : postUpdates.entrySet()) {
+            updates.put(POSTS + postId + "/" + entry.getKey(), entry.getValue());
+            if (isSummaryField(entry.getKey())) {
+                updates.put(SUMMARIES + postId + "/" + entry.getKey(), entry.getValue());
+            }
+        }
+        if (postUpdates.containsKey("imageUrls")) {
+            updates.put(SUMMARIES + postId + "/firstImageUrl", firstImage(postUpdates.get("imageUrls")));
+        }
+        return FirebaseDBHelper.getDatabase().getReference().updateChildren(updates);
+    }
+
+    public Task<Void> deletePost(String postId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(POSTS + postId, null);
+        updates.put(SUMMARIES + postId, null);
+        return FirebaseDBHelper.getDatabase().getReference().updateChildren(updates);
+    }
+
+    public Task<Void> setLiked(String postId, String userId, boolean liked) {
+        return setFlag(postId, "likedBy", "likeCount", userId, liked);
+    }
+
+    public Task<Void> setSaved(String postId, String userId, boolean saved) {
+        return setFlag(postId, "savedBy", "saveCount", userId, saved);
+    }
+
+    public Task<Void> addComment(String postId, Comment comment) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(POSTS + postId + "/comments/" + comment.getCommentId(), comment);
+        return updateWithCounter(postId, updates, "commentCount", 1);
+    }
+
+    public Task<Void> deleteComment(String postId, String commentId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(POSTS + postId + "/comments/" + commentId, null);
+        return updateWithCounter(postId, updates, "commentCount", -1);
+    }
+
+    /**
+     * Flips likedBy/savedBy/{userId} in a transaction and moves the counter only if this call
+     * changed the flag, so a double tap or the same action on two devices counts once.
+     */
+    private Task<Void> setFlag(String postId, String mapName, String counterName,
+                               String userId, boolean value) {
+        TaskCompletionSource<Void> result = new TaskCompletionSource<>();
+        boolean[] flipped = new boolean[1];
+
+        FirebaseDBHelper.getPostCardItemRef(postId).child(mapName).child(userId)
+                .runTransaction(new Transaction.Handler() {
+                    @NonNull
+                    @Override
+                    public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                        // Absent means false here, so an already-matching flag commits as a no-op;
+                        // a stale local guess still gets retried against the server value
+                        flipped[0] = (currentData.getValue() != null) != value;
+                        if (flipped[0]) {
+                            currentData.setValue(value ? true : null);
+                        }
+                        return Transaction.success(currentData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                        if (error != null) {
+                            result.setException(error.toException());
+                            return;
+                        }
+                        if (!committed || !flipped[0]) {
+                            result.setResult(null);
+                            return;
+                        }
+                        updateWithCounter(postId, new HashMap<>(), counterName, value ? 1 : -1)
+                                .addOnSuccessListener(unused -> result.setResult(null))
+                                .addOnFailureListener(result::setException);
+                    }
+                });
+        return result.getTask();
+    }
+
+    /**
+     * Writes `updates` with the summary counter moved by `delta`, but only if the summary exists:
+     * a bare increment on a missing summary would create one holding nothing but that counter.
+     * A post the backfill has not reached yet gets its counts from the post itself. If the
+     * existence check fails (offline), `updates` still go out without the counter.
+     */
+    private Task<Void> updateWithCounter(String postId, Map<String, Object> updates,
+                                         String counterName, int delta) {
+        return FirebaseDBHelper.getPostSummaryRef(postId).child("itemId").get()
+                .continueWithTask(task -> {
+                    if (task.isSuccessful() && task.getResult().exists()) {
+                        updates.put(SUMMARIES + postId + "/" + counterName, ServerValue.increment(delta));
+                    } else if (!task.isSuccessful()) {
+                        Log.w(TAG, "Summary check failed, writing " + postId + " without " + counterName);
+                    }
+                    return FirebaseDBHelper.getDatabase().getReference().updateChildren(updates);
+                });
+    }
+
+    /**
+     * Summaries carry counts only, so the viewer's own like/save flags are read from the two
+     * likedBy/savedBy entries of this user and stored on the item for later rebinds.
+     */
+    public void loadViewerState(PostCardItem post, String userId, ViewerStateCallback callback) {
+        if (post.isViewerStateLoaded() || userId == null || post.getItemId() == null) {
+            callback.onLoaded(post);
+            return;
+        }
+
+        FirebaseDBHelper.getPostCardItemRef(post.getItemId())
+                .child("likedBy").child(userId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot likedSnapshot) {
+                        FirebaseDBHelper.getPostCardItemRef(post.getItemId())
+                                .child("savedBy").child(userId)
+                                .addListenerForSingleValueEvent(new ValueEventListener() {
+                                    @Override
+                                    public void onDataChange(@NonNull DataSnapshot savedSnapshot) {
+                                        Map<String, Boolean> likedBy = new HashMap<>();
+                                        Map<String, Boolean> savedBy = new HashMap<>();
+                                        if (likedSnapshot.exists()) likedBy.put(userId, true);
+                                        if (savedSnapshot.exists()) savedBy.put(userId, true);
+
+                                        if (post.getLikeCount() == null) post.setLikeCount(post.getLikeTotal());
+                                        if (post.getSaveCount() == null) post.setSaveCount(post.getSaveTotal());
+                                        post.setLikedBy(likedBy);
+                                        post.setSavedBy(savedBy);
+                                        callback.onLoaded(post);
+                                    }
+
+                                    @Override
+                                    public void onCancelled(@NonNull DatabaseError error) {
+                                        Log.e(TAG, "Failed to load save state: " + error.getMessage());
+                                    }
+                                });
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to load like state: " + error.getMessage());
+                    }
+                });
+    }
+
+    /** One-time backfill of summaries for posts written before postSummaries existed; runs on one client. */
+    public void backfillIfNeeded() {
+        FirebaseDBHelper.claimMigration(MIGRATION_NAME, this::backfill);
+    }
+
+    private void backfill() {
+        FirebaseDBHelper.getPostCardItemsRef()
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Map<String, Object> updates = new HashMap<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            PostCardItem post = child.getValue(PostCardItem.class);
+                            if (post == null) continue;
+                            if (post.getItemId() == null) post.setItemId(child.getKey());
+                            updates.put(SUMMARIES + child.getKey(), toSummary(post));
+                        }
+                        updates.put("migrations/" + MIGRATION_NAME, true);
+
+                        FirebaseDBHelper.getDatabase().getReference().updateChildren(updates)
+                                .addOnSuccessListener(unused ->
+                                        Log.d(TAG, "Backfilled " + (updates.size() - 1) + " post summaries"))
+                                .addOnFailureListener(e ->
+                                        Log.e(TAG, "Summary backfill failed: " + e.getMessage()));
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to read posts for backfill: " + error.getMessage());
+                    }
+                });
+    }
+
+    static Map<String, Object> toSummary(PostCardItem post) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("itemId", post.getItemId());
+        summary.put("userId", post.getUserId());
+        summary.put("title", post.getTitle());
+        summary.put("content", post.getContent());
+        summary.put("imageUrls", post.getImageUrls());
+        summary.put("firstImageUrl", firstImage(post.getImageUrls()));
+        summary.put("timestamp", post.getTimestamp());
+        // Legacy posts fall back to their timestamp, as the createdAt seed does
+        summary.put("createdAt", PostCardCommunityRepository.createdAtOf(post.getCreatedAt(), post.getTimestamp()));
+        summary.put("likeCount", post.getLikeTotal());
+        summary.put("commentCount", post.getCommentTotal());
+        summary.put("saveCount", post.getSaveTotal());
+        return summary;
+    }
+
+    private static boolean isSummaryField(String key) {
+        switch (key) {
+            case "title":
+            case "content":
+            case "imageUrls":
+            case "timestamp":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String firstImage(Object imageUrls) {
+        if (imageUrls instanceof List && !((List<?>) imageUrls).isEmpty()) {
+            Object first = ((List<?>) imageUrls).get(0);
+            return first != null ? first.toString() : null;
+        }
+        return null;
+    }
+}
@@ -9,12 +9,10 @@ import com.google.firebase.database.*;
 import java.util.*;
 
 public class ProductDetailRepository {
-    private final DatabaseReference usersRef;
     private final DatabaseReference reviewsRef;
 
     public ProductDetailRepository() {
         FirebaseDatabase database = FirebaseDatabase.getInstance();
-        usersRef = database.getReference("users");
         reviewsRef = database.getReference("reviews");
     }
 
@@ -33,31 +31,22 @@ public class ProductDetailRepository {
         void onError(String errorMsg);
     }
 
-    // Get user by ID
+    // Get user by ID, through the shared profile cache
     public void getUserById(String userId, UserCallback<User> callback) {
         if (userId == null || userId.isEmpty()) {
             callback.onError("User ID is empty");
             return;
         }
 
-        usersRef.child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+        UserProfileCache.getInstance().getUser(userId, new UserRepository.UserCallback<User>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        callback.onSuccess(user);
-                    } else {
-                        callback.onError("Failed to parse user data");
-                    }
-                } else {
-                    callback.onError("User not found");
-                }
+            public void onSuccess(User user) {
+                callback.onSuccess(user);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                callback.onError("Failed to load user: " + error.getMessage());
+            public void onError(String errorMsg) {
+                callback.onError("Failed to load user: " + errorMsg);
             }
         });
     }
@@ -119,30 +108,24 @@ public class ProductDetailRepository {
         });
     }
 
-    // Get multiple users by IDs
+    // Get multiple users by IDs: fetches only users/{id} for the requested ids, a few at a time,
+    // through the shared profile cache instead of downloading the whole users node
     public void getUsersByIds(List<String> userIds, UsersMapCallback callback) {
         if (userIds == null || userIds.isEmpty()) {
             callback.onSuccess(new HashMap<>());
             return;
         }
 
-        usersRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        UserProfileCache.getInstance().getUsers(userIds, new UserRepository.UserCallback<Map<String, User>>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Map<String, User> usersMap = new HashMap<>();
-                for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                    User user = userSnapshot.getValue(User.class);
-                    if (user != null && userIds.contains(user.getUserId())) {
-                        usersMap.put(user.getUserId(), user);
-                    }
-                }
+            public void onSuccess(Map<String, User> usersMap) {
                 callback.onSuccess(usersMap);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                callback.onError("Failed to load users: " + error.getMessage());
+            public void onError(String errorMsg) {
+                callback.onError("Failed to load users: " + errorMsg);
             }
         });
     }
-}
\ No newline at end of file
+}
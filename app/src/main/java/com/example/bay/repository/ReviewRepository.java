@@ -4,20 +4,39 @@ import androidx.annotation.NonNull;
 import android.util.Log;
 
 import com.example.bay.model.Review;
+import com.example.bay.model.ReviewStats;
 import com.example.bay.model.ShoppingItem;
+import com.example.bay.util.BoundedParallelLoader;
+import com.example.bay.util.FirebaseDBHelper;
 import com.google.firebase.database.*;
 
 import java.util.*;
 
 public class ReviewRepository {
     private static final String TAG = "ReviewRepository";
+    private static final String BY_ITEM_USER = "reviews_by_item_user";
+    private static final String MIGRATION_NAME = "reviewsByItemUser";
+    private static final String ITEM_CREATED_AT = "itemCreatedAt";
+    private static final String PAGING_MIGRATION_NAME = "reviewsItemCreatedAt";
+    private static final int BACKFILL_PARALLEL = 4;
+
+    // Set once the by-item-user index is known to cover every review
+    private static volatile boolean byItemUserComplete;
+    // Set once every review carries itemCreatedAt, so the paged query sees all of them
+    private static volatile boolean itemCreatedAtComplete;
     private final DatabaseReference reviewsRef;
     private final DatabaseReference shoppingItemsRef;
+    private final DatabaseReference reviewStatsRef;
+    private final DatabaseReference byItemUserRef;
+    private final DatabaseReference rootRef;
 
     public ReviewRepository() {
         FirebaseDatabase database = FirebaseDatabase.getInstance();
+        rootRef = database.getReference();
         reviewsRef = database.getReference("reviews");
+        byItemUserRef = database.getReference(BY_ITEM_USER);
         shoppingItemsRef = database.getReference("shoppingItems");
+        reviewStatsRef = database.getReference("reviewStats");
     }
 
     public interface ReviewCallback<T> {
@@ -25,6 +44,25 @@ public class ReviewRepository {
         void onError(String errorMsg);
     }
 
+    // One page of an item's reviews, newest first
+    public static class ReviewPage {
+        private final List<Review> reviews;
+        private final boolean hasMore;
+
+        public ReviewPage(List<Review> reviews, boolean hasMore) {
+            this.reviews = reviews;
+            this.hasMore = hasMore;
+        }
+
+        public List<Review> getReviews() { return reviews; }
+        public boolean hasMore() { return hasMore; }
+
+        // Pass to getReviewsPage to continue after this page
+        public Review getLastReview() {
+            return reviews.isEmpty() ? null : reviews.get(reviews.size() - 1);
+        }
+    }
+
     // ✅ Get product by itemId (UUID)
     public void getProductByItemId(String uuidItemId, ReviewCallback<ShoppingItem> callback) {
         Log.d(TAG, "getProductByItemId - UUID: " + uuidItemId);
@@ -129,35 +167,19 @@ public class ReviewRepository {
                             return;
                         }
 
-                        // Step 3: Create review object
-                        String reviewId = reviewsRef.push().getKey();
-                        if (reviewId == null) {
-                            Log.e(TAG, "Failed to generate review ID");
-                            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
-                            return;
-                        }
-
-                        Review review = new Review();
-                        review.setReviewId(reviewId);
-                        review.setItemId(uuidItemId);
-                        review.setUserId(userId);
-                        review.setRating(rating);
-                        review.setComment(comment.trim());
-                        review.setCreatedAt(System.currentTimeMillis());
-                        review.setUpdatedAt(System.currentTimeMillis());
-
-                        // Step 4: Save the review
-                        reviewsRef.child(reviewId).setValue(review)
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d(TAG, "Review saved successfully, ID: " + reviewId);
-
-                                    // Step 5: Update product stats using the correct Firebase key
-                                    updateProductStats(firebaseKey, uuidItemId, callback);
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e(TAG, "Failed to save review: " + e.getMessage());
-                                    callback.onError("បរាជ័យក្នុងការរក្សាទុកមតិ");
-                                });
+                        // Step 3: Make sure the aggregate exists so the delta below lands on full totals
+                        ensureStats(uuidItemId, new ReviewCallback<ReviewStats>() {
+                            @Override
+                            public void onSuccess(ReviewStats stats) {
+                                saveNewReview(firebaseKey, uuidItemId, userId, rating, comment, callback);
+                            }
+
+                            @Override
+                            public void onError(String errorMsg) {
+                                Log.e(TAG, "Error preparing review stats: " + errorMsg);
+                                callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+                            }
+                        });
                     }
 
                     @Override
@@ -176,38 +198,155 @@ public class ReviewRepository {
         });
     }
 
-    // ✅ Update product stats - FIXED VERSION
-    private void updateProductStats(String firebaseKey, String uuidItemId, ReviewCallback<String> callback) {
-        Log.d(TAG, "updateProductStats called - Firebase Key: " + firebaseKey + ", UUID: " + uuidItemId);
+    private void saveNewReview(String firebaseKey, String uuidItemId, String userId, float rating,
+                               String comment, ReviewCallback<String> callback) {
+        // Step 4: Create review object
+        String reviewId = reviewsRef.push().getKey();
+        if (reviewId == null) {
+            Log.e(TAG, "Failed to generate review ID");
+            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            return;
+        }
 
-        // Get all reviews for this item
-        Query query = reviewsRef.orderByChild("itemId").equalTo(uuidItemId);
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
+        Review review = new Review();
+        review.setReviewId(reviewId);
+        review.setItemId(uuidItemId);
+        review.setUserId(userId);
+        review.setRating(rating);
+        review.setComment(comment.trim());
+        review.setCreatedAt(System.currentTimeMillis());
+        review.setUpdatedAt(System.currentTimeMillis());
+        review.setItemCreatedAt(Review.itemCreatedAtKey(uuidItemId, review.getCreatedAt()));
+
+        // Step 5: Save the review and its item/user index entry in one atomic write
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("reviews/" + reviewId, review);
+        updates.put(BY_ITEM_USER + "/" + uuidItemId + "/" + userId, reviewId);
+
+        rootRef.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Review saved successfully, ID: " + reviewId);
+
+                    // Step 6: Fold the new rating into the aggregate
+                    updateProductStats(firebaseKey, uuidItemId, null, rating, callback);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to save review: " + e.getMessage());
+                    callback.onError("បរាជ័យក្នុងការរក្សាទុកមតិ");
+                });
+    }
+
+    // ✅ Edit an existing review's rating and comment
+    public void updateReview(Review review, float newRating, String newComment, ReviewCallback<String> callback) {
+        if (review == null || review.getReviewId() == null || review.getItemId() == null) {
+            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            return;
+        }
+
+        float oldRating = review.getRating();
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("rating", newRating);
+        updates.put("comment", newComment != null ? newComment.trim() : review.getComment());
+        updates.put("updatedAt", System.currentTimeMillis());
+
+        ensureStats(review.getItemId(), new ReviewCallback<ReviewStats>() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Log.d(TAG, "Found " + snapshot.getChildrenCount() + " reviews for item");
+            public void onSuccess(ReviewStats stats) {
+                reviewsRef.child(review.getReviewId()).updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> withProductKey(review.getItemId(), callback, firebaseKey ->
+                                updateProductStats(firebaseKey, review.getItemId(), oldRating, newRating, callback)))
+                        .addOnFailureListener(e -> callback.onError("បរាជ័យក្នុងការរក្សាទុកមតិ"));
+            }
 
-                float totalRating = 0;
-                int reviewCount = 0;
+            @Override
+            public void onError(String errorMsg) {
+                callback.onError(errorMsg);
+            }
+        });
+    }
 
-                for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
-                    Review review = reviewSnapshot.getValue(Review.class);
-                    if (review != null) {
-                        totalRating += review.getRating();
-                        reviewCount++;
-                    }
+    // ✅ Delete a review and take its rating out of the aggregate
+    public void deleteReview(Review review, ReviewCallback<String> callback) {
+        if (review == null || review.getReviewId() == null || review.getItemId() == null) {
+            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            return;
+        }
+
+        ensureStats(review.getItemId(), new ReviewCallback<ReviewStats>() {
+            @Override
+            public void onSuccess(ReviewStats stats) {
+                Map<String, Object> removals = new HashMap<>();
+                removals.put("reviews/" + review.getReviewId(), null);
+                if (review.getUserId() != null) {
+                    removals.put(BY_ITEM_USER + "/" + review.getItemId() + "/" + review.getUserId(), null);
                 }
 
-                // Calculate new average
-                float newAverageRating = reviewCount > 0 ? totalRating / reviewCount : 0;
+                rootRef.updateChildren(removals)
+                        .addOnSuccessListener(aVoid -> withProductKey(review.getItemId(), callback, firebaseKey ->
+                                updateProductStats(firebaseKey, review.getItemId(), review.getRating(), null, callback)))
+                        .addOnFailureListener(e -> callback.onError("បរាជ័យក្នុងការលុបមតិ"));
+            }
 
-                Log.d(TAG, "New stats - Rating: " + newAverageRating + ", Count: " + reviewCount);
+            @Override
+            public void onError(String errorMsg) {
+                callback.onError(errorMsg);
+            }
+        });
+    }
+
+    private interface ProductKeyConsumer {
+        void accept(String firebaseKey);
+    }
+
+    private void withProductKey(String uuidItemId, ReviewCallback<String> callback, ProductKeyConsumer consumer) {
+        getProductByItemId(uuidItemId, new ReviewCallback<ShoppingItem>() {
+            @Override
+            public void onSuccess(ShoppingItem product) {
+                consumer.accept(product.getFirebaseKey());
+            }
 
-                // Update product using the correct Firebase key
+            @Override
+            public void onError(String errorMsg) {
+                callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            }
+        });
+    }
+
+    // ✅ Update product stats: transactional delta on reviewStats/{itemId}, mirrored onto the listing
+    private void updateProductStats(String firebaseKey, String uuidItemId, Float oldRating, Float newRating,
+                                    ReviewCallback<String> callback) {
+        Log.d(TAG, "updateProductStats called - Firebase Key: " + firebaseKey + ", UUID: " + uuidItemId
+                + ", old: " + oldRating + ", new: " + newRating);
+
+        reviewStatsRef.child(uuidItemId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                ReviewStats stats = currentData.getValue(ReviewStats.class);
+                if (stats == null) {
+                    stats = new ReviewStats();
+                }
+                stats.apply(oldRating, newRating);
+                currentData.setValue(stats);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                ReviewStats stats = currentData != null ? currentData.getValue(ReviewStats.class) : null;
+                if (error != null || !committed || stats == null) {
+                    Log.e(TAG, "Failed to update review stats: " + (error != null ? error.getMessage() : "not committed"));
+                    callback.onError("បរាជ័យក្នុងការធ្វើបច្ចុប្បន្នភាពការវាយតម្លៃ");
+                    return;
+                }
+
+                Log.d(TAG, "New stats - Rating: " + stats.getAverage() + ", Count: " + stats.getCount());
+
+                // Listing cards still read rating/review_count straight off the item
                 Map<String, Object> updates = new HashMap<>();
-                updates.put("rating", newAverageRating);
-                updates.put("review_count", reviewCount);
-                updates.put("updatedAt", System.currentTimeMillis());
+                updates.put("rating", stats.getAverage());
+                updates.put("review_count", stats.getCount());
+                updates.put("updatedAt", ServerValue.TIMESTAMP);
 
                 // Update the specific product using its Firebase key
                 shoppingItemsRef.child(firebaseKey).updateChildren(updates)
@@ -221,11 +360,71 @@ public class ReviewRepository {
                             callback.onError("បរាជ័យក្នុងការធ្វើបច្ចុប្បន្នភាពការវាយតម្លៃ");
                         });
             }
+        });
+    }
+
+    // Returns reviewStats/{itemId}, building it once from the reviews for items that predate it
+    private void ensureStats(String uuidItemId, ReviewCallback<ReviewStats> callback) {
+        reviewStatsRef.child(uuidItemId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                ReviewStats stats = snapshot.getValue(ReviewStats.class);
+                if (stats != null) {
+                    callback.onSuccess(stats);
+                } else {
+                    rebuildStats(uuidItemId, callback);
+                }
+            }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Failed to load reviews for stats: " + error.getMessage());
-                callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+                callback.onError("Failed to load review stats: " + error.getMessage());
+            }
+        });
+    }
+
+    private void rebuildStats(String uuidItemId, ReviewCallback<ReviewStats> callback) {
+        Log.d(TAG, "Building review stats for " + uuidItemId);
+
+        Query query = reviewsRef.orderByChild("itemId").equalTo(uuidItemId);
+        query.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                ReviewStats built = new ReviewStats();
+                for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
+                    Review review = reviewSnapshot.getValue(Review.class);
+                    if (review != null) {
+                        built.apply(null, review.getRating());
+                    }
+                }
+
+                // Only fill an empty node; if another client got there first, keep theirs
+                reviewStatsRef.child(uuidItemId).runTransaction(new Transaction.Handler() {
+                    @NonNull
+                    @Override
+                    public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                        if (currentData.getValue() != null) {
+                            return Transaction.abort();
+                        }
+                        currentData.setValue(built);
+                        return Transaction.success(currentData);
+                    }
+
+                    @Override
+                    public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                        ReviewStats stats = currentData != null ? currentData.getValue(ReviewStats.class) : null;
+                        if (error != null || stats == null) {
+                            callback.onError("Failed to build review stats");
+                        } else {
+                            callback.onSuccess(stats);
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                callback.onError("Failed to load reviews for stats: " + error.getMessage());
             }
         });
     }
@@ -234,50 +433,91 @@ public class ReviewRepository {
     public void getLatestReviews(String uuidItemId, ReviewCallback<List<Review>> callback) {
         Log.d(TAG, "getLatestReviews called for UUID: " + uuidItemId);
 
-        if (uuidItemId == null || uuidItemId.isEmpty()) {
+        getReviewsPage(uuidItemId, null, 2, new ReviewCallback<ReviewPage>() {
+            @Override
+            public void onSuccess(ReviewPage page) {
+                Log.d(TAG, "Returning " + page.getReviews().size() + " latest reviews");
+                callback.onSuccess(page.getReviews());
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+                callback.onError(errorMsg);
+            }
+        });
+    }
+
+    // ✅ Get one page of reviews, newest first; pass the previous page's last review to continue
+    public void getReviewsPage(String uuidItemId, Review after, int pageSize, ReviewCallback<ReviewPage> callback) {
+        if (uuidItemId == null || uuidItemId.isEmpty() || pageSize <= 0) {
             callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
             return;
         }
 
-        Query query = reviewsRef.orderByChild("itemId").equalTo(uuidItemId);
+        if (!itemCreatedAtComplete) {
+            // Older reviews have no itemCreatedAt yet and would be missing from the range query
+            getAllReviews(uuidItemId, new ReviewCallback<List<Review>>() {
+                @Override
+                public void onSuccess(List<Review> reviews) {
+                    int from = 0;
+                    if (after != null) {
+                        for (int i = 0; i < reviews.size(); i++) {
+                            if (reviews.get(i).getReviewId() != null
+                                    && reviews.get(i).getReviewId().equals(after.getReviewId())) {
+                                from = i + 1;
+                                break;
+                            }
+                        }
+                    }
+                    int to = Math.min(reviews.size(), from + pageSize);
+                    callback.onSuccess(new ReviewPage(new ArrayList<>(reviews.subList(from, to)), to < reviews.size()));
+                }
+
+                @Override
+                public void onError(String errorMsg) {
+                    callback.onError(errorMsg);
+                }
+            });
+            return;
+        }
 
+        // Range over "{itemId}_..." ending at the cursor; the cursor row itself comes back and is dropped
+        Query query = reviewsRef.orderByChild(ITEM_CREATED_AT).startAt(uuidItemId + "_");
+        String cursorKey = null;
+        if (after != null && after.getReviewId() != null) {
+            cursorKey = after.getReviewId();
+            String cursorValue = after.getItemCreatedAt() != null
+                    ? after.getItemCreatedAt()
+                    : Review.itemCreatedAtKey(uuidItemId, after.getCreatedAt());
+            query = query.endAt(cursorValue, cursorKey).limitToLast(pageSize + 2);
+        } else {
+            query = query.endAt(uuidItemId + "_\uf8ff").limitToLast(pageSize + 1);
+        }
+
+        String skipKey = cursorKey;
         query.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
+                // Children arrive oldest first
                 List<Review> reviews = new ArrayList<>();
-
-                if (snapshot.exists()) {
-                    Log.d(TAG, "Found " + snapshot.getChildrenCount() + " reviews");
-
-                    for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
-                        Review review = reviewSnapshot.getValue(Review.class);
-                        if (review != null) {
-                            reviews.add(review);
-                        }
-                    }
-
-                    // Sort by createdAt (newest first)
-                    Collections.sort(reviews, (r1, r2) -> {
-                        Long time1 = r1.getCreatedAt() != null ? r1.getCreatedAt() : 0L;
-                        Long time2 = r2.getCreatedAt() != null ? r2.getCreatedAt() : 0L;
-                        return time2.compareTo(time1);
-                    });
-
-                    // Take only latest 2
-                    if (reviews.size() > 2) {
-                        reviews = reviews.subList(0, 2);
+                for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
+                    if (reviewSnapshot.getKey() != null && reviewSnapshot.getKey().equals(skipKey)) continue;
+                    Review review = reviewSnapshot.getValue(Review.class);
+                    if (review != null) {
+                        reviews.add(0, review);
                     }
-                } else {
-                    Log.d(TAG, "No reviews found for this item");
                 }
 
-                Log.d(TAG, "Returning " + reviews.size() + " latest reviews");
-                callback.onSuccess(reviews);
+                boolean hasMore = reviews.size() > pageSize;
+                if (hasMore) {
+                    reviews = new ArrayList<>(reviews.subList(0, pageSize));
+                }
+                callback.onSuccess(new ReviewPage(reviews, hasMore));
             }
 
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Failed to load latest reviews: " + error.getMessage());
+                Log.e(TAG, "Failed to load review page: " + error.getMessage());
                 callback.onError("មិនអាចទាញយកមតិបាន");
             }
         });
@@ -332,6 +572,30 @@ public class ReviewRepository {
             return;
         }
 
+        // Single-child read of reviews_by_item_user/{itemId}/{userId}
+        byItemUserRef.child(uuidItemId).child(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                if (snapshot.exists()) {
+                    Log.d(TAG, "User has already reviewed this item");
+                    callback.onSuccess(true);
+                } else if (byItemUserComplete) {
+                    callback.onSuccess(false);
+                } else {
+                    // Until the backfill has run, older reviews may be missing from the index
+                    scanForUserReview(uuidItemId, userId, callback);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error checking user review: " + error.getMessage());
+                callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            }
+        });
+    }
+
+    private void scanForUserReview(String uuidItemId, String userId, ReviewCallback<Boolean> callback) {
         Query query = reviewsRef.orderByChild("itemId").equalTo(uuidItemId);
 
         query.addListenerForSingleValueEvent(new ValueEventListener() {
@@ -339,16 +603,12 @@ public class ReviewRepository {
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 boolean hasReviewed = false;
 
-                if (snapshot.exists()) {
-                    Log.d(TAG, "Checking " + snapshot.getChildrenCount() + " reviews");
-
-                    for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
-                        Review review = reviewSnapshot.getValue(Review.class);
-                        if (review != null && userId.equals(review.getUserId())) {
-                            hasReviewed = true;
-                            Log.d(TAG, "User has already reviewed this item");
-                            break;
-                        }
+                for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
+                    Review review = reviewSnapshot.getValue(Review.class);
+                    if (review != null && userId.equals(review.getUserId())) {
+                        hasReviewed = true;
+                        Log.d(TAG, "User has already reviewed this item");
+                        break;
                     }
                 }
 
@@ -363,43 +623,147 @@ public class ReviewRepository {
         });
     }
 
-    // ✅ Get product rating and count
-    public void getProductStats(String uuidItemId, ReviewCallback<Map<String, Object>> callback) {
-        if (uuidItemId == null || uuidItemId.isEmpty()) {
-            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
-            return;
-        }
+    // ✅ Migration: build reviews_by_item_user from existing reviews, on one client per database
+    public void backfillReviewIndexIfNeeded() {
+        if (byItemUserComplete) return;
 
-        Query query = reviewsRef.orderByChild("itemId").equalTo(uuidItemId);
+        FirebaseDBHelper.getMigrationRef(MIGRATION_NAME)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) {
+                            byItemUserComplete = true;
+                            return;
+                        }
+                        FirebaseDBHelper.claimMigration(MIGRATION_NAME, () -> backfillReviewIndex());
+                    }
 
-        query.addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to read migration flag: " + error.getMessage());
+                    }
+                });
+    }
+
+    private void backfillReviewIndex() {
+        reviewsRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                float totalRating = 0;
-                int reviewCount = 0;
+                Map<String, Object> updates = new HashMap<>();
+                Map<String, String> pathsByReview = new HashMap<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    Review review = child.getValue(Review.class);
+                    if (review == null || review.getItemId() == null || review.getUserId() == null) continue;
+                    String path = BY_ITEM_USER + "/" + review.getItemId() + "/" + review.getUserId();
+                    updates.put(path, child.getKey());
+                    pathsByReview.put(child.getKey(), path);
+                }
 
-                if (snapshot.exists()) {
-                    reviewCount = (int) snapshot.getChildrenCount();
+                rootRef.updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> finishReviewBackfill(MIGRATION_NAME, pathsByReview, () -> {
+                            byItemUserComplete = true;
+                            Log.d(TAG, "Backfilled " + pathsByReview.size() + " review index entries");
+                        }))
+                        .addOnFailureListener(e -> Log.e(TAG, "Review index backfill failed: " + e.getMessage()));
+            }
 
-                    for (DataSnapshot reviewSnapshot : snapshot.getChildren()) {
-                        Review review = reviewSnapshot.getValue(Review.class);
-                        if (review != null) {
-                            totalRating += review.getRating();
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to read reviews for backfill: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * A review deleted while a backfill ran can get its path written back after the delete cleared it.
+     * Paths are written first and each review is checked afterwards: either the check sees it gone and
+     * the path is removed here, or the delete lands later and removes the path itself. The migration
+     * flag goes out with the removals.
+     */
+    private void finishReviewBackfill(String migrationName, Map<String, String> pathsByReview, Runnable onDone) {
+        BoundedParallelLoader.<String, Boolean>loadAll(pathsByReview.keySet(), BACKFILL_PARALLEL,
+                (reviewId, sink) -> reviewsRef.child(reviewId).child("itemId").get()
+                        .addOnCompleteListener(task -> sink.onLoaded(
+                                task.isSuccessful() ? task.getResult().exists() : null)),
+                exists -> {
+                    Map<String, Object> updates = new HashMap<>();
+                    for (Map.Entry<String, Boolean> entry : exists.entrySet()) {
+                        if (!entry.getValue()) updates.put(pathsByReview.get(entry.getKey()), null);
+                    }
+                    updates.put("migrations/" + migrationName, true);
+
+                    rootRef.updateChildren(updates)
+                            .addOnSuccessListener(aVoid -> onDone.run())
+                            .addOnFailureListener(e -> Log.e(TAG, "Failed to finish " + migrationName + ": " + e.getMessage()));
+                });
+    }
+
+    // ✅ Migration: stamp itemCreatedAt on reviews written before paging, on one client per database
+    public void backfillReviewPagingKeysIfNeeded() {
+        if (itemCreatedAtComplete) return;
+
+        FirebaseDBHelper.getMigrationRef(PAGING_MIGRATION_NAME)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        if (Boolean.TRUE.equals(snapshot.getValue(Boolean.class))) {
+                            itemCreatedAtComplete = true;
+                            return;
                         }
+                        FirebaseDBHelper.claimMigration(PAGING_MIGRATION_NAME, () -> backfillReviewPagingKeys());
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Failed to read migration flag: " + error.getMessage());
                     }
+                });
+    }
+
+    private void backfillReviewPagingKeys() {
+        reviewsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Map<String, Object> updates = new HashMap<>();
+                Map<String, String> pathsByReview = new HashMap<>();
+                for (DataSnapshot child : snapshot.getChildren()) {
+                    Review review = child.getValue(Review.class);
+                    if (review == null || review.getItemId() == null || review.getItemCreatedAt() != null) continue;
+                    String path = "reviews/" + child.getKey() + "/" + ITEM_CREATED_AT;
+                    updates.put(path, Review.itemCreatedAtKey(review.getItemId(), review.getCreatedAt()));
+                    pathsByReview.put(child.getKey(), path);
                 }
 
-                float averageRating = reviewCount > 0 ? totalRating / reviewCount : 0;
+                rootRef.updateChildren(updates)
+                        .addOnSuccessListener(aVoid -> finishReviewBackfill(PAGING_MIGRATION_NAME, pathsByReview, () -> {
+                            itemCreatedAtComplete = true;
+                            Log.d(TAG, "Backfilled " + pathsByReview.size() + " review paging keys");
+                        }))
+                        .addOnFailureListener(e -> Log.e(TAG, "Review paging key backfill failed: " + e.getMessage()));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Failed to read reviews for backfill: " + error.getMessage());
+            }
+        });
+    }
 
-                Map<String, Object> stats = new HashMap<>();
-                stats.put("rating", averageRating);
-                stats.put("review_count", reviewCount);
+    // ✅ Get product rating, count and histogram from the aggregate node
+    public void getProductStats(String uuidItemId, ReviewCallback<ReviewStats> callback) {
+        if (uuidItemId == null || uuidItemId.isEmpty()) {
+            callback.onError("ទិន្នន័យមិនត្រឹមត្រូវ");
+            return;
+        }
 
+        ensureStats(uuidItemId, new ReviewCallback<ReviewStats>() {
+            @Override
+            public void onSuccess(ReviewStats stats) {
                 callback.onSuccess(stats);
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
+            public void onError(String errorMsg) {
                 callback.onError("មិនអាចទាញយកទិន្នន័យបាន");
             }
         });
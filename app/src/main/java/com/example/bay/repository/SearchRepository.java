@@ -11,6 +11,8 @@ import com.example.bay.model.User;
 import com.example.bay.service.PostCardCommunityService;
 import com.example.bay.service.UserService;
 import com.example.bay.util.RetrofitClient;
+import com.example.bay.util.StreamFilter;
+import com.example.bay.util.StreamingMapCall;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,6 +31,16 @@ public class SearchRepository {
     private static final int MAX_USERS = 5;
     private static final int MAX_POSTS = 20;
 
+    private static final Comparator<PostCardItem> NEWEST_POST_FIRST = new Comparator<PostCardItem>() {
+        @Override
+        public int compare(PostCardItem p1, PostCardItem p2) {
+            if (p1.getTimestamp() == null && p2.getTimestamp() == null) return 0;
+            if (p1.getTimestamp() == null) return 1;
+            if (p2.getTimestamp() == null) return -1;
+            return p2.getTimestamp().compareTo(p1.getTimestamp());
+        }
+    };
+
     private final UserService userService;
     private final PostCardCommunityService postService;
 
@@ -127,55 +139,24 @@ public class SearchRepository {
         String searchQuery = query.trim().toLowerCase(Locale.getDefault());
         isLoadingLiveData.postValue(true);
 
-        postService.getAllPostCardItems().enqueue(new Callback<Map<String, PostCardItem>>() {
-            @Override
-            public void onResponse(@NonNull Call<Map<String, PostCardItem>> call,
-                                   @NonNull Response<Map<String, PostCardItem>> response) {
+        // Non-matching posts are dropped while parsing; only the newest MAX_POSTS matches are kept
+        StreamFilter<PostCardItem> filter = StreamFilter.<PostCardItem>where(post -> matchesPost(post, searchQuery))
+                .top(MAX_POSTS, NEWEST_POST_FIRST);
 
+        postService.streamPostCardItems().enqueue(filter, new StreamingMapCall.Callback<PostCardItem>() {
+            @Override
+            public void onSuccess(Map<String, PostCardItem> posts) {
                 isLoadingLiveData.postValue(false);
-
-                if (response.isSuccessful() && response.body() != null) {
-                    List<PostCardItem> matchedPosts = new ArrayList<>();
-                    Map<String, PostCardItem> posts = response.body();
-
-                    for (Map.Entry<String, PostCardItem> entry : posts.entrySet()) {
-                        PostCardItem post = entry.getValue();
-                        if (post != null && matchesPost(post, searchQuery)) {
-                            matchedPosts.add(post);
-                        }
-                    }
-
-                    // Sort posts by timestamp (newest first)
-                    Collections.sort(matchedPosts, new Comparator<PostCardItem>() {
-                        @Override
-                        public int compare(PostCardItem p1, PostCardItem p2) {
-                            if (p1.getTimestamp() == null && p2.getTimestamp() == null) return 0;
-                            if (p1.getTimestamp() == null) return 1;
-                            if (p2.getTimestamp() == null) return -1;
-                            return p2.getTimestamp().compareTo(p1.getTimestamp());
-                        }
-                    });
-
-                    // Limit to MAX_POSTS
-                    if (matchedPosts.size() > MAX_POSTS) {
-                        matchedPosts = matchedPosts.subList(0, MAX_POSTS);
-                    }
-
-                    postSearchResultsLiveData.postValue(matchedPosts);
-                    errorLiveData.postValue(null);
-
-                } else {
-                    postSearchResultsLiveData.postValue(new ArrayList<>());
-                    errorLiveData.postValue("Failed to load posts");
-                }
+                postSearchResultsLiveData.postValue(new ArrayList<>(posts.values()));
+                errorLiveData.postValue(null);
             }
 
             @Override
-            public void onFailure(@NonNull Call<Map<String, PostCardItem>> call, @NonNull Throwable t) {
+            public void onError(String errorMsg) {
                 isLoadingLiveData.postValue(false);
                 postSearchResultsLiveData.postValue(new ArrayList<>());
-                errorLiveData.postValue("Network error: " + t.getMessage());
-                Log.e(TAG, "Post search failed: " + t.getMessage());
+                errorLiveData.postValue(errorMsg);
+                Log.e(TAG, "Post search failed: " + errorMsg);
             }
         });
     }
@@ -242,41 +223,30 @@ public class SearchRepository {
     }
 
     private void searchPostsCombined(String query, List<SearchResult> existingResults) {
-        postService.getAllPostCardItems().enqueue(new Callback<Map<String, PostCardItem>>() {
-            @Override
-            public void onResponse(@NonNull Call<Map<String, PostCardItem>> call,
-                                   @NonNull Response<Map<String, PostCardItem>> response) {
+        StreamFilter<PostCardItem> filter = StreamFilter.where(post -> matchesPost(post, query));
 
+        postService.streamPostCardItems().enqueue(filter, new StreamingMapCall.Callback<PostCardItem>() {
+            @Override
+            public void onSuccess(Map<String, PostCardItem> posts) {
                 isLoadingLiveData.postValue(false);
 
-                if (response.isSuccessful() && response.body() != null) {
-                    List<SearchResult> finalResults = new ArrayList<>(existingResults);
-                    Map<String, PostCardItem> posts = response.body();
-
-                    for (Map.Entry<String, PostCardItem> entry : posts.entrySet()) {
-                        PostCardItem post = entry.getValue();
-                        if (post != null && matchesPost(post, query)) {
-                            finalResults.add(new SearchResult(SearchResult.TYPE_POST, post));
-                        }
-                    }
-
-                    // Sort posts by timestamp (newest first) within the combined results
-                    sortPosts(finalResults);
-                    searchResultsLiveData.postValue(finalResults);
-                    errorLiveData.postValue(null);
-
-                } else {
-                    searchResultsLiveData.postValue(existingResults);
-                    errorLiveData.postValue("Failed to load posts");
+                List<SearchResult> finalResults = new ArrayList<>(existingResults);
+                for (PostCardItem post : posts.values()) {
+                    finalResults.add(new SearchResult(SearchResult.TYPE_POST, post));
                 }
+
+                // Sort posts by timestamp (newest first) within the combined results
+                sortPosts(finalResults);
+                searchResultsLiveData.postValue(finalResults);
+                errorLiveData.postValue(null);
             }
 
             @Override
-            public void onFailure(@NonNull Call<Map<String, PostCardItem>> call, @NonNull Throwable t) {
+            public void onError(String errorMsg) {
                 isLoadingLiveData.postValue(false);
                 searchResultsLiveData.postValue(existingResults);
-                errorLiveData.postValue("Network error: " + t.getMessage());
-                Log.e(TAG, "Post search failed: " + t.getMessage());
+                errorLiveData.postValue(errorMsg);
+                Log.e(TAG, "Post search failed: " + errorMsg);
             }
         });
     }
@@ -1,17 +1,28 @@
 package com.example.bay.repository;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 import android.util.Log;
 
 import com.example.bay.model.ShoppingItem;
 import com.example.bay.service.ShoppingItemService;
+import com.example.bay.util.FirebaseDBHelper;
 import com.example.bay.util.RetrofitClient;
+import com.google.firebase.database.ServerValue;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import retrofit2.Call;
 import retrofit2.Callback;
@@ -19,6 +30,39 @@ import retrofit2.Response;
 
 public class ShoppingItemRepository {
     private static final String TAG = "ShoppingRepo";
+    private static final Comparator<ShoppingItem> NEWEST_FIRST = new Comparator<ShoppingItem>() {
+        @Override
+        public int compare(ShoppingItem item1, ShoppingItem item2) {
+            Long time1 = item1.getCreatedAt() != null ? item1.getCreatedAt() : 0L;
+            Long time2 = item2.getCreatedAt() != null ? item2.getCreatedAt() : 0L;
+            return Long.compare(time2, time1);
+        }
+    };
+
+    private static final String ORDER_BY_USER_ID = "\"userId\"";
+    private static final String ORDER_BY_ITEM_ID = "\"itemId\"";
+    private static final String ORDER_BY_CREATED_AT = "\"createdAt\"";
+    private static final String ITEM_KEYS_NODE = "shoppingItemKeys";
+
+    private static final String ORDER_BY_UPDATED_AT = "\"updatedAt\"";
+    private static final String ORDER_BY_DELETED_AT = "\"deletedAt\"";
+    private static final String TOMBSTONES_NODE = "shoppingItemTombstones";
+    // Re-read a little before the high-water mark: a write can land after one stamped later than it
+    private static final long SYNC_OVERLAP_MS = 5 * 60 * 1000;
+    private static final long MIN_SYNC_INTERVAL_MS = 60 * 1000;
+    private static final Gson GSON = new Gson();
+
+    // Disk mirror state is shared by every repository instance; localItems is only touched on diskExecutor
+    private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+    private static final MutableLiveData<Map<String, ShoppingItem>> shoppingItems = new MutableLiveData<>();
+    // Last sync failure, or null once a sync succeeds
+    private static final MutableLiveData<String> syncError = new MutableLiveData<>();
+    private static Map<String, ShoppingItem> localItems;
+    private static boolean diskLoadStarted;
+    private static boolean syncing;
+    private static boolean syncRequested;
+    private static long lastSyncAt;
+
     private final ShoppingItemService shoppingItemService;
 
     public ShoppingItemRepository() {
@@ -26,32 +70,196 @@ public class ShoppingItemRepository {
         Log.d(TAG, "Repository initialized");
     }
 
-    // ✅ DELETE: Delete shopping item by Firebase key
-    public void deleteShoppingItemByFirebaseKey(String firebaseKey, ShoppingItemCallback<Void> callback) {
-        Log.d(TAG, "🗑️ Deleting item by Firebase key: " + firebaseKey);
+    // ✅ LOCAL: Listings served from the on-disk mirror first, then brought up to date by a delta sync
+    public LiveData<Map<String, ShoppingItem>> observeShoppingItems() {
+        synchronized (ShoppingItemRepository.class) {
+            if (!diskLoadStarted) {
+                diskLoadStarted = true;
+                diskExecutor.execute(() -> {
+                    ShoppingItemStore store = ShoppingItemStore.getInstance();
+                    localItems = store != null ? store.loadAll() : new LinkedHashMap<>();
+                    // An empty disk means first run; wait for the full load instead of flashing nothing
+                    if (!localItems.isEmpty()) {
+                        publishLocalItems();
+                    }
+                    Log.d(TAG, "💾 Loaded " + localItems.size() + " items from disk");
+                });
+            }
+        }
+        syncShoppingItemsIfStale();
+        return shoppingItems;
+    }
 
-        Call<Void> call = shoppingItemService.deleteShoppingItem(firebaseKey);
-        call.enqueue(new Callback<Void>() {
+    public LiveData<String> observeSyncErrors() {
+        return syncError;
+    }
+
+    // Screens reopening within MIN_SYNC_INTERVAL_MS reuse the last sync; writes call syncShoppingItems directly
+    public void syncShoppingItemsIfStale() {
+        synchronized (ShoppingItemRepository.class) {
+            if (System.currentTimeMillis() - lastSyncAt < MIN_SYNC_INTERVAL_MS) return;
+        }
+        syncShoppingItems();
+    }
+
+    // ✅ SYNC: Fetch only listings changed since the high-water mark, plus tombstones for deletes.
+    // The first sync (no mark yet) downloads the collection once.
+    public void syncShoppingItems() {
+        synchronized (ShoppingItemRepository.class) {
+            if (syncing) {
+                syncRequested = true;
+                return;
+            }
+            syncing = true;
+        }
+
+        diskExecutor.execute(() -> {
+            ShoppingItemStore store = ShoppingItemStore.getInstance();
+            long highWaterMark = store != null ? store.getHighWaterMark() : 0L;
+            if (highWaterMark == 0L) {
+                fullSync();
+            } else {
+                deltaSync(Math.max(0L, highWaterMark - SYNC_OVERLAP_MS), highWaterMark);
+            }
+        });
+    }
+
+    private void fullSync() {
+        Log.d(TAG, "🔄 Full sync of shopping items");
+        getAllShoppingItems(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
             @Override
-            public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
-                Log.d(TAG, "DELETE Response Code: " + response.code());
+            public void onSuccess(Map<String, ShoppingItem> result) {
+                applySync(true, result, Collections.emptySet(), 0L);
+            }
 
-                if (response.isSuccessful()) {
-                    Log.d(TAG, "✅ DELETE SUCCESS for Firebase key: " + firebaseKey);
-                    callback.onSuccess(null);
-                } else {
-                    String error = "DELETE failed. Code: " + response.code() +
-                            ", Message: " + response.message();
-                    Log.e(TAG, "❌ " + error);
-                    callback.onError(error);
-                }
+            @Override
+            public void onError(String errorMsg) {
+                failSync(errorMsg);
             }
+        });
+    }
+
+    private void deltaSync(long since, long highWaterMark) {
+        Log.d(TAG, "🔄 Delta sync of shopping items since " + since);
+        shoppingItemService.getTombstonesSince(ORDER_BY_DELETED_AT, since)
+                .enqueue(new Callback<Map<String, Map<String, Long>>>() {
+                    @Override
+                    public void onResponse(@NonNull Call<Map<String, Map<String, Long>>> call,
+                                           @NonNull Response<Map<String, Map<String, Long>>> response) {
+                        if (!response.isSuccessful()) {
+                            Log.e(TAG, "❌ Tombstone sync failed. Code: " + response.code());
+                            failSync("Tombstone sync failed. Code: " + response.code());
+                            return;
+                        }
+
+                        // An empty result comes back as a JSON null
+                        Map<String, Map<String, Long>> tombstones =
+                                response.body() != null ? response.body() : new HashMap<>();
+                        long mark = highWaterMark;
+                        for (Map<String, Long> tombstone : tombstones.values()) {
+                            Long deletedAt = tombstone != null ? tombstone.get("deletedAt") : null;
+                            if (deletedAt != null) mark = Math.max(mark, deletedAt);
+                        }
+                        long markAfterTombstones = mark;
+
+                        shoppingItemService.getShoppingItemsChangedSince(ORDER_BY_UPDATED_AT, since)
+                                .enqueue(keyedItemsCallback(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
+                                    @Override
+                                    public void onSuccess(Map<String, ShoppingItem> changed) {
+                                        applySync(false, changed, tombstones.keySet(), markAfterTombstones);
+                                    }
+
+                                    @Override
+                                    public void onError(String errorMsg) {
+                                        failSync(errorMsg);
+                                    }
+                                }));
+                    }
 
+                    @Override
+                    public void onFailure(@NonNull Call<Map<String, Map<String, Long>>> call, @NonNull Throwable t) {
+                        Log.e(TAG, "❌ Tombstone sync error: " + t.getMessage());
+                        failSync("Network error: " + t.getMessage());
+                    }
+                });
+    }
+
+    private void applySync(boolean replaceAll, Map<String, ShoppingItem> changed,
+                           Collection<String> deletedKeys, long highWaterMark) {
+        diskExecutor.execute(() -> {
+            long mark = highWaterMark;
+            for (ShoppingItem item : changed.values()) {
+                if (item.getUpdatedAt() != null) mark = Math.max(mark, item.getUpdatedAt());
+            }
+
+            ShoppingItemStore store = ShoppingItemStore.getInstance();
+            if (store != null) {
+                store.applySync(replaceAll, changed, deletedKeys, Math.max(mark, 1L));
+            }
+
+            if (localItems == null || replaceAll) {
+                localItems = new LinkedHashMap<>();
+            }
+            localItems.putAll(changed);
+            for (String key : deletedKeys) {
+                localItems.remove(key);
+            }
+            publishLocalItems();
+            syncError.postValue(null);
+
+            Log.d(TAG, "✅ Synced " + changed.size() + " changed, " + deletedKeys.size() + " deleted");
+            synchronized (ShoppingItemRepository.class) {
+                lastSyncAt = System.currentTimeMillis();
+            }
+            finishSync();
+        });
+    }
+
+    // Runs on the disk executor, which owns localItems
+    private static void publishLocalItems() {
+        shoppingItems.postValue(Collections.unmodifiableMap(new LinkedHashMap<>(localItems)));
+    }
+
+    // Listings already on screen stay; observers of observeSyncErrors report the failure
+    private void failSync(String errorMsg) {
+        Log.e(TAG, "❌ Sync failed: " + errorMsg);
+        syncError.postValue(errorMsg);
+        finishSync();
+    }
+
+    private void finishSync() {
+        boolean again;
+        synchronized (ShoppingItemRepository.class) {
+            syncing = false;
+            again = syncRequested;
+            syncRequested = false;
+        }
+        if (again) {
+            syncShoppingItems();
+        }
+    }
+
+    // ✅ DELETE: Delete shopping item by Firebase key; only via deleteShoppingItem, which also drops the index entry
+    private void deleteShoppingItemByFirebaseKey(String firebaseKey, ShoppingItemCallback<Void> callback) {
+        Log.d(TAG, "🗑️ Deleting item by Firebase key: " + firebaseKey);
+
+        // Remove the listing and leave a tombstone in one write so delta syncs see the delete.
+        // Goes through the SDK: the REST PATCH body is Gson, which drops null values.
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("shoppingItems/" + firebaseKey, null);
+        updates.put(TOMBSTONES_NODE + "/" + firebaseKey + "/deletedAt", ServerValue.TIMESTAMP);
+
+        FirebaseDBHelper.batchUpdate(updates, new FirebaseDBHelper.BatchWriteCallback() {
             @Override
-            public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
-                String error = "Network error: " + t.getMessage();
-                Log.e(TAG, "❌ " + error);
-                callback.onError(error);
+            public void onSuccess() {
+                Log.d(TAG, "✅ DELETE SUCCESS for Firebase key: " + firebaseKey);
+                callback.onSuccess(null);
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "❌ DELETE failed: " + error);
+                callback.onError("DELETE failed: " + error);
             }
         });
     }
@@ -64,8 +272,19 @@ public class ShoppingItemRepository {
         getFirebaseKeyByItemId(itemId, new ShoppingItemCallback<String>() {
             @Override
             public void onSuccess(String firebaseKey) {
-                // Now delete using the Firebase key
-                deleteShoppingItemByFirebaseKey(firebaseKey, callback);
+                // Now delete using the Firebase key, then drop its itemId index entry
+                deleteShoppingItemByFirebaseKey(firebaseKey, new ShoppingItemCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        deleteItemKeyIndex(itemId);
+                        callback.onSuccess(null);
+                    }
+
+                    @Override
+                    public void onError(String errorMsg) {
+                        callback.onError(errorMsg);
+                    }
+                });
             }
 
             @Override
@@ -80,7 +299,7 @@ public class ShoppingItemRepository {
         Log.d(TAG, "✏️ Updating item by Firebase key: " + firebaseKey);
         Log.d(TAG, "Item data: " + item.toString());
 
-        Call<ShoppingItem> call = shoppingItemService.updateShoppingItem(firebaseKey, item);
+        Call<ShoppingItem> call = shoppingItemService.updateShoppingItem(firebaseKey, withServerUpdatedAt(item));
         call.enqueue(new Callback<ShoppingItem>() {
             @Override
             public void onResponse(@NonNull Call<ShoppingItem> call, @NonNull Response<ShoppingItem> response) {
@@ -131,21 +350,33 @@ public class ShoppingItemRepository {
         }
     }
 
-    // ✅ CREATE: Create new shopping item
+    // ✅ CREATE: Create new shopping item together with its itemId -> key index entry
     public void createShoppingItem(ShoppingItem item, ShoppingItemCallback<ShoppingItem> callback) {
         Log.d(TAG, "➕ Creating new item: " + item.getName());
 
-        Call<ShoppingItem> call = shoppingItemService.createShoppingItem(item);
-        call.enqueue(new Callback<ShoppingItem>() {
+        // Push keys are generated on the client, so the listing and its index go in one PATCH
+        String firebaseKey = FirebaseDBHelper.getShoppingItemsRef().push().getKey();
+        if (firebaseKey == null) {
+            callback.onError("Could not generate a key for the new item");
+            return;
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("shoppingItems/" + firebaseKey, withServerUpdatedAt(item));
+        if (item.getItemId() != null) {
+            updates.put(ITEM_KEYS_NODE + "/" + item.getItemId(), firebaseKey);
+        }
+
+        Call<Void> call = shoppingItemService.updateChildren(updates);
+        call.enqueue(new Callback<Void>() {
             @Override
-            public void onResponse(@NonNull Call<ShoppingItem> call, @NonNull Response<ShoppingItem> response) {
+            public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
                 Log.d(TAG, "CREATE Response Code: " + response.code());
 
                 if (response.isSuccessful()) {
-                    ShoppingItem createdItem = response.body();
-                    Log.d(TAG, "✅ CREATE SUCCESS - Item ID: " +
-                            (createdItem != null ? createdItem.getItemId() : "unknown"));
-                    callback.onSuccess(createdItem);
+                    item.setFirebaseKey(firebaseKey);
+                    Log.d(TAG, "✅ CREATE SUCCESS - Item ID: " + item.getItemId() + ", key: " + firebaseKey);
+                    callback.onSuccess(item);
                 } else {
                     String error = "CREATE failed. Code: " + response.code() +
                             ", Message: " + response.message();
@@ -155,7 +386,7 @@ public class ShoppingItemRepository {
             }
 
             @Override
-            public void onFailure(@NonNull Call<ShoppingItem> call, @NonNull Throwable t) {
+            public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
                 String error = "Network error: " + t.getMessage();
                 Log.e(TAG, "❌ " + error);
                 callback.onError(error);
@@ -163,6 +394,16 @@ public class ShoppingItemRepository {
         });
     }
 
+    // updatedAt drives the delta sync high-water mark, so the server clock stamps it rather than the device's
+    private static JsonObject withServerUpdatedAt(ShoppingItem item) {
+        JsonObject serverTimestamp = new JsonObject();
+        serverTimestamp.addProperty(".sv", "timestamp");
+
+        JsonObject json = GSON.toJsonTree(item).getAsJsonObject();
+        json.add("updatedAt", serverTimestamp);
+        return json;
+    }
+
     // ✅ GET ALL: Get all shopping items with Firebase keys
     public void getAllShoppingItems(ShoppingItemCallback<Map<String, ShoppingItem>> callback) {
         Log.d(TAG, "📋 Fetching all shopping items...");
@@ -198,31 +439,48 @@ public class ShoppingItemRepository {
         });
     }
 
-    // ✅ GET: Get Firebase key by itemId
+    // ✅ GET: Get Firebase key by itemId from the shoppingItemKeys index
     public void getFirebaseKeyByItemId(String itemId, ShoppingItemCallback<String> callback) {
         Log.d(TAG, "🔍 Looking for Firebase key for itemId: " + itemId);
 
-        getAllShoppingItems(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
+        shoppingItemService.getFirebaseKey(itemId).enqueue(new Callback<String>() {
             @Override
-            public void onSuccess(Map<String, ShoppingItem> result) {
-                String firebaseKey = null;
-
-                for (Map.Entry<String, ShoppingItem> entry : result.entrySet()) {
-                    ShoppingItem item = entry.getValue();
-                    if (item.getItemId() != null && item.getItemId().equals(itemId)) {
-                        firebaseKey = entry.getKey();
-                        break;
-                    }
-                }
-
-                if (firebaseKey != null) {
+            public void onResponse(@NonNull Call<String> call, @NonNull Response<String> response) {
+                String firebaseKey = response.isSuccessful() ? response.body() : null;
+                if (firebaseKey != null && !firebaseKey.isEmpty()) {
                     Log.d(TAG, "✅ Found Firebase key: " + firebaseKey + " for itemId: " + itemId);
                     callback.onSuccess(firebaseKey);
                 } else {
+                    // Listings created before the index existed
+                    findFirebaseKeyByQuery(itemId, callback);
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<String> call, @NonNull Throwable t) {
+                String error = "Error looking up item key: " + t.getMessage();
+                Log.e(TAG, "❌ " + error);
+                callback.onError(error);
+            }
+        });
+    }
+
+    // Indexed orderBy="itemId" lookup; backfills the index entry when it finds the item
+    private void findFirebaseKeyByQuery(String itemId, ShoppingItemCallback<String> callback) {
+        queryShoppingItems(ORDER_BY_ITEM_ID, itemId, new ShoppingItemCallback<Map<String, ShoppingItem>>() {
+            @Override
+            public void onSuccess(Map<String, ShoppingItem> result) {
+                if (result.isEmpty()) {
                     String error = "No Firebase key found for itemId: " + itemId;
                     Log.e(TAG, "❌ " + error);
                     callback.onError(error);
+                    return;
                 }
+
+                String firebaseKey = result.keySet().iterator().next();
+                Log.d(TAG, "✅ Found Firebase key: " + firebaseKey + " for itemId: " + itemId + " (indexed now)");
+                putItemKeyIndex(itemId, firebaseKey);
+                callback.onSuccess(firebaseKey);
             }
 
             @Override
@@ -232,31 +490,86 @@ public class ShoppingItemRepository {
         });
     }
 
-    // ✅ GET USER ITEMS: Get items by user ID with Firebase keys
+    private void putItemKeyIndex(String itemId, String firebaseKey) {
+        shoppingItemService.putFirebaseKey(itemId, firebaseKey).enqueue(new Callback<String>() {
+            @Override
+            public void onResponse(@NonNull Call<String> call, @NonNull Response<String> response) {
+                if (!response.isSuccessful()) {
+                    Log.w(TAG, "Index write failed for itemId " + itemId + ": " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<String> call, @NonNull Throwable t) {
+                Log.w(TAG, "Index write failed for itemId " + itemId, t);
+            }
+        });
+    }
+
+    private void deleteItemKeyIndex(String itemId) {
+        shoppingItemService.deleteFirebaseKey(itemId).enqueue(new Callback<Void>() {
+            @Override
+            public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
+                if (!response.isSuccessful()) {
+                    Log.w(TAG, "Index delete failed for itemId " + itemId + ": " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<Void> call, @NonNull Throwable t) {
+                Log.w(TAG, "Index delete failed for itemId " + itemId, t);
+            }
+        });
+    }
+
+    // Indexed equality query; fills in the Firebase key of every returned item
+    private void queryShoppingItems(String orderBy, String value,
+                                    ShoppingItemCallback<Map<String, ShoppingItem>> callback) {
+        shoppingItemService.queryShoppingItems(orderBy, ShoppingItemService.quote(value))
+                .enqueue(keyedItemsCallback(callback));
+    }
+
+    private Callback<Map<String, ShoppingItem>> keyedItemsCallback(
+            ShoppingItemCallback<Map<String, ShoppingItem>> callback) {
+        return new Callback<Map<String, ShoppingItem>>() {
+            @Override
+            public void onResponse(@NonNull Call<Map<String, ShoppingItem>> call,
+                                   @NonNull Response<Map<String, ShoppingItem>> response) {
+                if (!response.isSuccessful()) {
+                    String error = "Failed to query items. Code: " + response.code();
+                    Log.e(TAG, "❌ " + error);
+                    callback.onError(error);
+                    return;
+                }
+
+                // An empty result comes back as a JSON null
+                Map<String, ShoppingItem> items = response.body() != null ? response.body() : new HashMap<>();
+                for (Map.Entry<String, ShoppingItem> entry : items.entrySet()) {
+                    entry.getValue().setFirebaseKey(entry.getKey());
+                }
+                callback.onSuccess(items);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<Map<String, ShoppingItem>> call, @NonNull Throwable t) {
+                String error = "Error querying shopping items: " + t.getMessage();
+                Log.e(TAG, "❌ " + error);
+                callback.onError(error);
+            }
+        };
+    }
+
+    // ✅ GET USER ITEMS: Indexed orderBy="userId" query, so only this user's items are downloaded
     public void getUserItems(String userId, ShoppingItemCallback<List<ShoppingItem>> callback) {
         Log.d(TAG, "👤 Fetching items for user: " + userId);
 
-        getAllShoppingItems(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
+        queryShoppingItems(ORDER_BY_USER_ID, userId, new ShoppingItemCallback<Map<String, ShoppingItem>>() {
             @Override
             public void onSuccess(Map<String, ShoppingItem> result) {
-                List<ShoppingItem> userItems = new ArrayList<>();
-
-                for (Map.Entry<String, ShoppingItem> entry : result.entrySet()) {
-                    ShoppingItem item = entry.getValue();
-                    if (item.getUserId() != null && item.getUserId().equals(userId)) {
-                        userItems.add(item);
-                    }
-                }
+                List<ShoppingItem> userItems = new ArrayList<>(result.values());
 
                 // Sort by date (newest first)
-                Collections.sort(userItems, new Comparator<ShoppingItem>() {
-                    @Override
-                    public int compare(ShoppingItem item1, ShoppingItem item2) {
-                        Long time1 = item1.getCreatedAt() != null ? item1.getCreatedAt() : 0L;
-                        Long time2 = item2.getCreatedAt() != null ? item2.getCreatedAt() : 0L;
-                        return Long.compare(time2, time1);
-                    }
-                });
+                Collections.sort(userItems, NEWEST_FIRST);
 
                 Log.d(TAG, "✅ Found " + userItems.size() + " items for user: " + userId);
                 callback.onSuccess(userItems);
@@ -324,41 +637,27 @@ public class ShoppingItemRepository {
         return results;
     }
 
-    // ✅ GET LIMITED: Get limited number of items for home screen
+    // ✅ GET LIMITED: Newest `limit` items for the home screen via orderBy="createdAt"&limitToLast
     public void fetchLimitedShoppingItems(int limit, ShoppingItemCallback<List<ShoppingItem>> callback) {
         Log.d(TAG, "📥 Fetching " + limit + " shopping items for home screen...");
 
-        getAllShoppingItems(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
-            @Override
-            public void onSuccess(Map<String, ShoppingItem> result) {
-                List<ShoppingItem> allItems = new ArrayList<>(result.values());
-
-                // Sort by createdAt (newest first)
-                Collections.sort(allItems, new Comparator<ShoppingItem>() {
+        shoppingItemService.getLatestShoppingItems(ORDER_BY_CREATED_AT, limit)
+                .enqueue(keyedItemsCallback(new ShoppingItemCallback<Map<String, ShoppingItem>>() {
                     @Override
-                    public int compare(ShoppingItem item1, ShoppingItem item2) {
-                        Long time1 = item1.getCreatedAt() != null ? item1.getCreatedAt() : 0L;
-                        Long time2 = item2.getCreatedAt() != null ? item2.getCreatedAt() : 0L;
-                        return Long.compare(time2, time1); // Newest first
-                    }
-                });
+                    public void onSuccess(Map<String, ShoppingItem> result) {
+                        // The REST API returns the window unordered
+                        List<ShoppingItem> limitedItems = new ArrayList<>(result.values());
+                        Collections.sort(limitedItems, NEWEST_FIRST);
 
-                // Take only the specified limit
-                int count = Math.min(allItems.size(), limit);
-                List<ShoppingItem> limitedItems = new ArrayList<>();
-                for (int i = 0; i < count; i++) {
-                    limitedItems.add(allItems.get(i));
-                }
-
-                Log.d(TAG, "✅ Successfully fetched " + limitedItems.size() + " items for home screen");
-                callback.onSuccess(limitedItems);
-            }
+                        Log.d(TAG, "✅ Successfully fetched " + limitedItems.size() + " items for home screen");
+                        callback.onSuccess(limitedItems);
+                    }
 
-            @Override
-            public void onError(String errorMsg) {
-                callback.onError(errorMsg);
-            }
-        });
+                    @Override
+                    public void onError(String errorMsg) {
+                        callback.onError(errorMsg);
+                    }
+                }));
     }
 
     public interface ShoppingItemCallback<T> {
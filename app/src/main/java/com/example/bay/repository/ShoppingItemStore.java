@@ -0,0 +1,141 @@
+package com.example.bay.repository;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import com.example.bay.model.ShoppingItem;
+import com.google.gson.Gson;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk copy of shoppingItems, one row per listing keyed by its Firebase key, plus the
+ * updatedAt high-water mark of the last delta sync. Rows hold the listing as JSON so the
+ * table does not need a migration whenever ShoppingItem gains a field.
+ *
+ * Calls touch the disk; ShoppingItemRepository runs them off the main thread.
+ */
+public class ShoppingItemStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "ShoppingItemStore";
+    private static final String DATABASE_NAME = "shopping_items.db";
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String TABLE_ITEMS = "shopping_items";
+    private static final String COLUMN_KEY = "firebase_key";
+    private static final String COLUMN_UPDATED_AT = "updated_at";
+    private static final String COLUMN_JSON = "json";
+
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String COLUMN_NAME = "name";
+    private static final String COLUMN_VALUE = "value";
+    private static final String HIGH_WATER_MARK = "updatedAt";
+
+    private static ShoppingItemStore instance;
+
+    private final Gson gson = new Gson();
+
+    private ShoppingItemStore(Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized void init(Context context) {
+        if (instance == null) {
+            instance = new ShoppingItemStore(context);
+        }
+    }
+
+    // Null until MyApplication has called init
+    public static synchronized ShoppingItemStore getInstance() {
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_ITEMS + " ("
+                + COLUMN_KEY + " TEXT PRIMARY KEY, "
+                + COLUMN_UPDATED_AT + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_JSON + " TEXT NOT NULL)");
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + COLUMN_NAME + " TEXT PRIMARY KEY, "
+                + COLUMN_VALUE + " INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // A mirror, not the source of truth: drop it and let the next sync refill it
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ITEMS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYNC_STATE);
+        onCreate(db);
+    }
+
+    public Map<String, ShoppingItem> loadAll() {
+        Map<String, ShoppingItem> items = new LinkedHashMap<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_ITEMS,
+                new String[]{COLUMN_KEY, COLUMN_JSON}, null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                String key = cursor.getString(0);
+                try {
+                    ShoppingItem item = gson.fromJson(cursor.getString(1), ShoppingItem.class);
+                    if (item != null) {
+                        item.setFirebaseKey(key);
+                        items.put(key, item);
+                    }
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Skipping unreadable row " + key + ": " + e.getMessage());
+                }
+            }
+        }
+        return items;
+    }
+
+    public long getHighWaterMark() {
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE, new String[]{COLUMN_VALUE},
+                COLUMN_NAME + " = ?", new String[]{HIGH_WATER_MARK}, null, null, null)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0L;
+        }
+    }
+
+    /**
+     * Applies one sync in a single transaction: upserts changed listings, drops tombstoned keys and
+     * moves the high-water mark. With {@code replaceAll} the table is cleared first (full load).
+     */
+    public void applySync(boolean replaceAll, Map<String, ShoppingItem> changed,
+                          Collection<String> deletedKeys, long highWaterMark) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            if (replaceAll) {
+                db.delete(TABLE_ITEMS, null, null);
+            }
+
+            for (Map.Entry<String, ShoppingItem> entry : changed.entrySet()) {
+                ShoppingItem item = entry.getValue();
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_KEY, entry.getKey());
+                values.put(COLUMN_UPDATED_AT, item.getUpdatedAt() != null ? item.getUpdatedAt() : 0L);
+                values.put(COLUMN_JSON, gson.toJson(item));
+                db.insertWithOnConflict(TABLE_ITEMS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+
+            for (String key : deletedKeys) {
+                db.delete(TABLE_ITEMS, COLUMN_KEY + " = ?", new String[]{key});
+            }
+
+            ContentValues mark = new ContentValues();
+            mark.put(COLUMN_NAME, HIGH_WATER_MARK);
+            mark.put(COLUMN_VALUE, highWaterMark);
+            db.insertWithOnConflict(TABLE_SYNC_STATE, null, mark, SQLiteDatabase.CONFLICT_REPLACE);
+
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.bay.repository;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.bay.model.User;
+import com.example.bay.service.UserService;
+import com.example.bay.util.BoundedParallelLoader;
+import com.example.bay.util.RetrofitClient;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Process-wide cache of users/{id} profiles shared by every adapter and repository that shows
+ * a sender, author or chat partner.
+ *
+ * - Entries expire after PROFILE_TTL_MS; ids that do not exist are remembered for MISSING_TTL_MS.
+ * - At most MAX_ENTRIES profiles are kept, least recently used first out.
+ * - Concurrent lookups of the same id share one request.
+ * - getUsers() resolves a set of ids with at most MAX_PARALLEL requests in flight.
+ *
+ * Callbacks run on the main thread (Retrofit's callback executor); cache hits call back immediately.
+ */
+public class UserProfileCache {
+
+    private static final String TAG = "UserProfileCache";
+
+    private static final int MAX_ENTRIES = 500;
+    private static final long PROFILE_TTL_MS = 10 * 60 * 1000L;
+    private static final long MISSING_TTL_MS = 60 * 1000L;
+    private static final int MAX_PARALLEL = 4;
+
+    private static UserProfileCache instance;
+
+    private final UserService userService;
+
+    // Access-ordered so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Entry> entries =
+            new LinkedHashMap<String, Entry>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+
+    private final Map<String, List<UserRepository.UserCallback<User>>> inFlight = new HashMap<>();
+
+    private static final class Entry {
+        @Nullable final User user;   // null = user does not exist
+        final long expiresAt;
+
+        Entry(@Nullable User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private UserProfileCache() {
+        userService = RetrofitClient.getClient().create(UserService.class);
+    }
+
+    public static synchronized UserProfileCache getInstance() {
+        if (instance == null) {
+            instance = new UserProfileCache();
+        }
+        return instance;
+    }
+
+    /** Returns a fresh cached profile without touching the network, or null. */
+    @Nullable
+    public synchronized User peek(String userId) {
+        Entry entry = freshEntry(userId);
+        return entry != null ? entry.user : null;
+    }
+
+    public void getUser(String userId, @NonNull UserRepository.UserCallback<User> callback) {
+        if (userId == null || userId.isEmpty()) {
+            callback.onError("Missing user id");
+            return;
+        }
+
+        Entry cached;
+        synchronized (this) {
+            cached = freshEntry(userId);
+            if (cached == null) {
+                List<UserRepository.UserCallback<User>> waiters = inFlight.get(userId);
+                if (waiters != null) {
+                    waiters.add(callback);
+                    return;
+                }
+                waiters = new ArrayList<>();
+                waiters.add(callback);
+                inFlight.put(userId, waiters);
+            }
+        }
+
+        if (cached != null) {
+            deliver(callback, cached.user);
+            return;
+        }
+        fetch(userId);
+    }
+
+    /**
+     * Resolves every id in userIds and calls back once with the profiles that exist.
+     * Missing users and failed lookups are left out of the map.
+     */
+    public void getUsers(Collection<String> userIds,
+                         @NonNull UserRepository.UserCallback<Map<String, User>> callback) {
+        Map<String, User> cachedUsers = new HashMap<>();
+        Set<String> pending = new LinkedHashSet<>();
+
+        synchronized (this) {
+            if (userIds != null) {
+                for (String id : userIds) {
+                    if (id == null || id.isEmpty()) continue;
+                    Entry entry = freshEntry(id);
+                    if (entry == null) {
+                        pending.add(id);
+                    } else if (entry.user != null) {
+                        cachedUsers.put(id, entry.user);
+                    }
+                }
+            }
+        }
+
+        if (pending.isEmpty()) {
+            callback.onSuccess(cachedUsers);
+            return;
+        }
+
+        BoundedParallelLoader.<String, User>loadAll(pending, MAX_PARALLEL,
+                (id, sink) -> getUser(id, new UserRepository.UserCallback<User>() {
+                    @Override
+                    public void onSuccess(User user) {
+                        sink.onLoaded(user);
+                    }
+
+                    @Override
+                    public void onError(String errorMsg) {
+                        sink.onLoaded(null);
+                    }
+                }),
+                loaded -> {
+                    cachedUsers.putAll(loaded);
+                    callback.onSuccess(cachedUsers);
+                });
+    }
+
+    /** Stores a profile the app just wrote, e.g. after editing the current user's profile. */
+    public synchronized void put(String userId, @Nullable User user) {
+        if (userId == null) return;
+        entries.put(userId, new Entry(user, now() + (user != null ? PROFILE_TTL_MS : MISSING_TTL_MS)));
+    }
+
+    public synchronized void invalidate(String userId) {
+        entries.remove(userId);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private void fetch(String userId) {
+        userService.getUserById(userId).enqueue(new Callback<User>() {
+            @Override
+            public void onResponse(@NonNull Call<User> call, @NonNull Response<User> response) {
+                if (response.isSuccessful()) {
+                    // Firebase answers 200 with a null body for a missing path
+                    User user = response.body();
+                    put(userId, user);
+                    complete(userId, user, null);
+                } else {
+                    complete(userId, null, response.message());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<User> call, @NonNull Throwable t) {
+                Log.w(TAG, "Profile lookup failed for " + userId, t);
+                complete(userId, null, t.getMessage());
+            }
+        });
+    }
+
+    private void complete(String userId, @Nullable User user, @Nullable String errorMsg) {
+        List<UserRepository.UserCallback<User>> waiters;
+        synchronized (this) {
+            waiters = inFlight.remove(userId);
+        }
+        if (waiters == null) return;
+
+        for (UserRepository.UserCallback<User> waiter : waiters) {
+            if (errorMsg != null) {
+                waiter.onError(errorMsg);
+            } else {
+                deliver(waiter, user);
+            }
+        }
+    }
+
+    private static void deliver(UserRepository.UserCallback<User> callback, @Nullable User user) {
+        if (user != null) {
+            callback.onSuccess(user);
+        } else {
+            callback.onError("User not found");
+        }
+    }
+
+    @Nullable
+    private Entry freshEntry(String userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) return null;
+        if (entry.expiresAt <= now()) {
+            entries.remove(userId);
+            return null;
+        }
+        return entry;
+    }
+
+    private static long now() {
+        return SystemClock.elapsedRealtime();
+    }
+}
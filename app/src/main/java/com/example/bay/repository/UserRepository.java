@@ -34,8 +34,10 @@ public class UserRepository {
         userService.createUser(user.getUserId(), user).enqueue(new Callback<User>() {
             @Override
             public void onResponse(@NonNull Call<User> call, @NonNull Response<User> response) {
-                if (response.isSuccessful()) callback.onSuccess(user);
-                else callback.onError(response.message());
+                if (response.isSuccessful()) {
+                    UserProfileCache.getInstance().put(user.getUserId(), user);
+                    callback.onSuccess(user);
+                } else callback.onError(response.message());
             }
 
             @Override
@@ -82,8 +84,11 @@ public class UserRepository {
         userService.updateUser(userId, user).enqueue(new Callback<User>() {
             @Override
             public void onResponse(@NonNull Call<User> call, @NonNull Response<User> response) {
-                if (response.isSuccessful()) callback.onSuccess(response.body());
-                else callback.onError(response.message());
+                if (response.isSuccessful()) {
+                    // Keep the shared profile cache in step with what was just written
+                    UserProfileCache.getInstance().put(userId, user);
+                    callback.onSuccess(response.body());
+                } else callback.onError(response.message());
             }
 
             @Override
@@ -97,8 +102,10 @@ public class UserRepository {
         userService.deleteUser(userId).enqueue(new Callback<Void>() {
             @Override
             public void onResponse(@NonNull Call<Void> call, @NonNull Response<Void> response) {
-                if (response.isSuccessful()) callback.onSuccess(null);
-                else callback.onError(response.message());
+                if (response.isSuccessful()) {
+                    UserProfileCache.getInstance().invalidate(userId);
+                    callback.onSuccess(null);
+                } else callback.onError(response.message());
             }
 
             @Override
@@ -1,6 +1,7 @@
 package com.example.bay.service;
 
 import com.example.bay.model.Location;
+import com.example.bay.util.StreamingMapCall;
 import java.util.Map;
 import retrofit2.Call;
 import retrofit2.http.Body;
@@ -9,6 +10,7 @@ import retrofit2.http.GET;
 import retrofit2.http.PATCH;
 import retrofit2.http.POST;
 import retrofit2.http.Path;
+import retrofit2.http.Streaming;
 
 public interface FarmMapService {
 
@@ -16,6 +18,11 @@ public interface FarmMapService {
     @GET("locations.json")
     Call<Map<String, Location>> getAllLocations();
 
+    // ✅ 1b. Get locations parsed entry by entry with a per-call StreamFilter
+    @Streaming
+    @GET("locations.json")
+    StreamingMapCall<Location> streamLocations();
+
     // ✅ 2. Get single location by ID
     @GET("locations/{id}.json")
     Call<Location> getLocationById(@Path("id") String id);
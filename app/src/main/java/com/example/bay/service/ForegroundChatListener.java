@@ -0,0 +1,154 @@
+package com.example.bay.service;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.bay.model.Chat;
+import com.example.bay.repository.ChatRepository;
+import com.example.bay.util.ChatNotifier;
+import com.example.bay.util.FirebaseDBHelper;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Watches the signed-in user's inbox (user-chats/{uid}) with a ChildEventListener, but only while
+ * an activity is started. In the background, new messages arrive as FCM data messages in
+ * MyFirebaseMessagingService instead, so no socket is held open.
+ */
+public class ForegroundChatListener implements Application.ActivityLifecycleCallbacks {
+
+    private static ForegroundChatListener instance;
+
+    private final Application application;
+    private final Map<String, Integer> unreadByChat = new HashMap<>();
+    private int startedActivities;
+    private String listeningUserId;
+    private ChildEventListener inboxListener;
+    private String openChatId;
+
+    private ForegroundChatListener(Application application) {
+        this.application = application;
+    }
+
+    public static synchronized void register(Application application) {
+        if (instance == null) {
+            instance = new ForegroundChatListener(application);
+            application.registerActivityLifecycleCallbacks(instance);
+        }
+    }
+
+    public static synchronized boolean isInForeground() {
+        return instance != null && instance.startedActivities > 0;
+    }
+
+    // The chat on screen gets no notification; pass null when it closes
+    public static synchronized void setOpenChatId(@Nullable String chatId) {
+        if (instance != null) {
+            instance.openChatId = chatId;
+        }
+    }
+
+    @Override
+    public synchronized void onActivityStarted(@NonNull Activity activity) {
+        startedActivities++;
+
+        // Also catches a sign-in or account switch while the app is open
+        String userId = FirebaseAuth.getInstance().getUid();
+        if (userId == null) {
+            detach();
+        } else if (!userId.equals(listeningUserId)) {
+            detach();
+            attach(userId);
+        }
+    }
+
+    @Override
+    public synchronized void onActivityStopped(@NonNull Activity activity) {
+        startedActivities = Math.max(0, startedActivities - 1);
+        if (startedActivities == 0) {
+            detach();
+        }
+    }
+
+    private void attach(String userId) {
+        listeningUserId = userId;
+        unreadByChat.clear();
+
+        inboxListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                // Initial entries only seed the counters
+                Chat chat = ChatRepository.toInboxChat(snapshot);
+                unreadByChat.put(snapshot.getKey(), chat != null ? chat.getUnreadCount() : 0);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                Chat chat = ChatRepository.toInboxChat(snapshot);
+                if (chat == null) return;
+
+                String chatId = snapshot.getKey();
+                Integer previous = unreadByChat.put(chatId, chat.getUnreadCount());
+                boolean newIncoming = chat.getUnreadCount() > (previous != null ? previous : 0)
+                        && !userId.equals(chat.getLastMessageSenderId());
+
+                if (newIncoming && !chatId.equals(openChatId)) {
+                    ChatNotifier.showChatMessage(application, chatId, chat.getChatPartnerId(userId),
+                            chat.getPartnerName(), chat.getLastMessage());
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                unreadByChat.remove(snapshot.getKey());
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+            }
+        };
+
+        FirebaseDBHelper.getUserChatsRef(userId).addChildEventListener(inboxListener);
+    }
+
+    private void detach() {
+        if (inboxListener != null && listeningUserId != null) {
+            FirebaseDBHelper.getUserChatsRef(listeningUserId).removeEventListener(inboxListener);
+        }
+        inboxListener = null;
+        listeningUserId = null;
+    }
+
+    @Override
+    public void onActivityCreated(@NonNull Activity activity, @Nullable Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(@NonNull Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(@NonNull Activity activity) {
+    }
+}
@@ -1,13 +1,11 @@
 package com.example.bay.service;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
 import android.media.RingtoneManager;
 import android.net.Uri;
-import android.os.Build;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -17,7 +15,9 @@ import com.example.bay.HomeActivity;
 import com.example.bay.R;
 import com.example.bay.fragment.PersonalMessageFragment;
 import com.example.bay.model.Notification;
+import com.example.bay.repository.ChatRepository;
 import com.example.bay.repository.NotificationRepository;
+import com.example.bay.util.ChatNotifier;
 import com.example.bay.util.FirebaseDBHelper;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
@@ -29,8 +29,6 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
     private static final String TAG = "MyFirebaseMsgService";
     private static final String CHANNEL_ID = "bay_chat_notifications";
-    private static final String CHANNEL_NAME = "Bay Chat Notifications";
-    private static final String CHANNEL_DESC = "Notifications for chat messages";
 
     @Override
     public void onNewToken(@NonNull String token) {
@@ -67,7 +65,16 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
                 String imageUrl = data.get("imageUrl");
 
                 saveNotificationLocally(senderId, senderName, message, chatId, messageId, imageUrl);
-                showChatNotification(senderName, message, chatId, senderId);
+
+                // Warm the local cache so opening the chat shows the new message straight away
+                if (chatId != null) {
+                    new ChatRepository().prefetchLatestMessage(chatId);
+                }
+
+                // While the app is open, ForegroundChatListener notifies from the inbox instead
+                if (!ForegroundChatListener.isInForeground()) {
+                    ChatNotifier.showChatMessage(this, chatId, senderId, senderName, message);
+                }
             }
 
         } catch (Exception e) {
@@ -83,45 +90,8 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         }
     }
 
-    private void showChatNotification(String senderName, String message, String chatId, String senderId) {
-        createNotificationChannel();
-
-        Intent intent = new Intent(this, HomeActivity.class);
-        intent.putExtra("notification", true);
-        intent.putExtra("chatId", chatId);
-        intent.putExtra("userId", senderId);
-        intent.putExtra("navigateTo", "personal_message");
-        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent,
-                PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE);
-
-        Uri defaultSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-
-        NotificationCompat.Builder notificationBuilder =
-                new NotificationCompat.Builder(this, CHANNEL_ID)
-                        .setSmallIcon(R.drawable.ic_bell)
-                        .setContentTitle(senderName)
-                        .setContentText(message)
-                        .setAutoCancel(true)
-                        .setSound(defaultSoundUri)
-                        .setContentIntent(pendingIntent)
-                        .setPriority(NotificationCompat.PRIORITY_HIGH)
-                        .setCategory(NotificationCompat.CATEGORY_MESSAGE)
-                        .setVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-
-        NotificationManager notificationManager =
-                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-
-        int notificationId = new Random().nextInt();
-
-        if (notificationManager != null) {
-            notificationManager.notify(notificationId, notificationBuilder.build());
-        }
-    }
-
     private void showSimpleNotification(String title, String body) {
-        createNotificationChannel();
+        ChatNotifier.createNotificationChannel(this);
 
         Intent intent = new Intent(this, HomeActivity.class);
         intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
@@ -151,26 +121,6 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
         }
     }
 
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID,
-                    CHANNEL_NAME,
-                    NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription(CHANNEL_DESC);
-            channel.enableLights(true);
-            channel.enableVibration(true);
-            channel.setShowBadge(true);
-            channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
-
-            NotificationManager notificationManager = getSystemService(NotificationManager.class);
-            if (notificationManager != null) {
-                notificationManager.createNotificationChannel(channel);
-            }
-        }
-    }
-
     private void saveTokenToFirebase(String token) {
         String currentUserId = com.google.firebase.auth.FirebaseAuth.getInstance().getUid();
 
@@ -1,100 +0,0 @@
-package com.example.bay.service;
-
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
-import android.content.Context;
-import android.content.Intent;
-import android.media.RingtoneManager;
-import android.net.Uri;
-import android.os.Build;
-
-import androidx.annotation.NonNull;
-import androidx.core.app.NotificationCompat;
-
-import com.example.bay.HomeActivity;
-import com.example.bay.R;
-import com.google.firebase.messaging.FirebaseMessagingService;
-import com.google.firebase.messaging.RemoteMessage;
-
-import java.util.Map;
-
-public class NotificationService extends FirebaseMessagingService {
-
-    private static final String CHANNEL_ID = "chat_notifications";
-    private static final String CHANNEL_NAME = "Chat Messages";
-    private static final String CHANNEL_DESC = "Notifications for new chat messages";
-
-    @Override
-    public void onMessageReceived(@NonNull RemoteMessage remoteMessage) {
-        super.onMessageReceived(remoteMessage);
-
-        Map<String, String> data = remoteMessage.getData();
-        String type = data.get("type");
-
-        if ("chat_message".equals(type)) {
-            String senderId = data.get("senderId");
-            String senderName = data.get("senderName");
-            String message = data.get("message");
-            String chatId = data.get("chatId");
-
-            showChatNotification(senderName, message, chatId);
-        }
-    }
-
-    @Override
-    public void onNewToken(@NonNull String token) {
-        super.onNewToken(token);
-    }
-
-    private void showChatNotification(String senderName, String message, String chatId) {
-        createNotificationChannel();
-
-        Intent intent = new Intent(this, HomeActivity.class);
-        intent.putExtra("chatId", chatId);
-        intent.putExtra("navigateTo", "chat");
-        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent,
-                PendingIntent.FLAG_ONE_SHOT | PendingIntent.FLAG_IMMUTABLE);
-
-        Uri defaultSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
-
-        NotificationCompat.Builder notificationBuilder =
-                new NotificationCompat.Builder(this, CHANNEL_ID)
-                        .setSmallIcon(R.drawable.ic_bell)
-                        .setContentTitle(senderName)
-                        .setContentText(message)
-                        .setAutoCancel(true)
-                        .setSound(defaultSoundUri)
-                        .setContentIntent(pendingIntent)
-                        .setPriority(NotificationCompat.PRIORITY_HIGH);
-
-        NotificationManager notificationManager =
-                (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-
-        if (notificationManager != null) {
-            int notificationId = (int) System.currentTimeMillis();
-            notificationManager.notify(notificationId, notificationBuilder.build());
-        }
-    }
-
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID,
-                    CHANNEL_NAME,
-                    NotificationManager.IMPORTANCE_HIGH
-            );
-            channel.setDescription(CHANNEL_DESC);
-            channel.enableLights(true);
-            channel.enableVibration(true);
-            channel.setShowBadge(true);
-
-            NotificationManager manager = getSystemService(NotificationManager.class);
-            if (manager != null) {
-                manager.createNotificationChannel(channel);
-            }
-        }
-    }
-}
\ No newline at end of file
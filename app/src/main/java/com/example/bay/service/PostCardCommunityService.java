@@ -1,14 +1,31 @@
 package com.example.bay.service;
 
 import com.example.bay.model.PostCardItem;
+import com.example.bay.util.StreamingMapCall;
 
 import java.util.Map;
 
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Query;
+import retrofit2.http.Streaming;
 
 public interface PostCardCommunityService {
 
     @GET("postCardItems.json")
     Call<Map<String, PostCardItem>> getAllPostCardItems();
+
+    // Post summaries, parsed entry by entry with a per-call StreamFilter
+    @Streaming
+    @GET("postSummaries.json")
+    StreamingMapCall<PostCardItem> streamPostCardItems();
+
+    // Keyset page of post summaries: newest `limitToLast` posts whose orderBy key is <= endAt.
+    // A null endAt is dropped by Retrofit, which yields the first page.
+    @GET("postSummaries.json")
+    Call<Map<String, PostCardItem>> getPostCardItemsPage(
+            @Query("orderBy") String orderBy,
+            @Query("endAt") Long endAt,
+            @Query("limitToLast") int limitToLast
+    );
 }
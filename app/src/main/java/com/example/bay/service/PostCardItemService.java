@@ -10,10 +10,11 @@ import retrofit2.http.Query;
 
 public interface PostCardItemService {
 
-    @GET("postCardItems.json")
+    // List screens read the lean summaries; the full post lives under postCardItems/{id}
+    @GET("postSummaries.json")
     Call<Map<String, PostCardItem>> getAllPostCardItems();
 
-    @GET("postCardItems.json")
+    @GET("postSummaries.json")
     Call<Map<String, PostCardItem>> getLatestPostCardItems(
             @Query("orderBy") String orderBy,
             @Query("limitToLast") int limitToLast
@@ -1,27 +1,70 @@
 package com.example.bay.service;
 
 import com.example.bay.model.ShoppingItem;
+import com.google.gson.JsonObject;
 import java.util.Map;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.DELETE;
 import retrofit2.http.GET;
-import retrofit2.http.POST;
+import retrofit2.http.PATCH;
 import retrofit2.http.PUT;
 import retrofit2.http.Path;
+import retrofit2.http.Query;
 
 public interface ShoppingItemService {
     @GET("shoppingItems.json")
     Call<Map<String, ShoppingItem>> getAllShoppingItems();
 
-    @POST("shoppingItems.json")
-    Call<ShoppingItem> createShoppingItem(@Body ShoppingItem item);
+    // Indexed equality query, e.g. orderBy="userId"&equalTo="<uid>" (values must be JSON-quoted)
+    @GET("shoppingItems.json")
+    Call<Map<String, ShoppingItem>> queryShoppingItems(
+            @Query("orderBy") String orderBy,
+            @Query("equalTo") String equalTo
+    );
+
+    // Newest `limitToLast` items by the orderBy key
+    @GET("shoppingItems.json")
+    Call<Map<String, ShoppingItem>> getLatestShoppingItems(
+            @Query("orderBy") String orderBy,
+            @Query("limitToLast") int limitToLast
+    );
+
+    // Delta sync: items whose orderBy key (updatedAt) is >= startAt
+    @GET("shoppingItems.json")
+    Call<Map<String, ShoppingItem>> getShoppingItemsChangedSince(
+            @Query("orderBy") String orderBy,
+            @Query("startAt") long startAt
+    );
+
+    // Deleted listings: shoppingItemTombstones/{firebaseKey} -> {deletedAt}
+    @GET("shoppingItemTombstones.json")
+    Call<Map<String, Map<String, Long>>> getTombstonesSince(
+            @Query("orderBy") String orderBy,
+            @Query("startAt") long startAt
+    );
+
+    // Multi-path write at the database root: keys are paths, values the data to set there
+    @PATCH(".json")
+    Call<Void> updateChildren(@Body Map<String, Object> updates);
 
     // CHANGE: Use Firebase key path instead of itemId
+    // The body is the item as JSON so updatedAt can carry the {".sv": "timestamp"} placeholder
     @PUT("shoppingItems/{firebaseKey}.json")
-    Call<ShoppingItem> updateShoppingItem(@Path("firebaseKey") String firebaseKey, @Body ShoppingItem item);
+    Call<ShoppingItem> updateShoppingItem(@Path("firebaseKey") String firebaseKey, @Body JsonObject item);
 
-    // CHANGE: Use Firebase key path instead of itemId
-    @DELETE("shoppingItems/{firebaseKey}.json")
-    Call<Void> deleteShoppingItem(@Path("firebaseKey") String firebaseKey);
-}
\ No newline at end of file
+    // 🔹 Secondary index: shoppingItemKeys/{itemId} -> Firebase key of the listing
+    @GET("shoppingItemKeys/{itemId}.json")
+    Call<String> getFirebaseKey(@Path("itemId") String itemId);
+
+    @PUT("shoppingItemKeys/{itemId}.json")
+    Call<String> putFirebaseKey(@Path("itemId") String itemId, @Body String firebaseKey);
+
+    @DELETE("shoppingItemKeys/{itemId}.json")
+    Call<Void> deleteFirebaseKey(@Path("itemId") String itemId);
+
+    // ⚙️ Firebase REST query values are JSON, so strings need quotes
+    static String quote(String value) {
+        return "\"" + value + "\"";
+    }
+}
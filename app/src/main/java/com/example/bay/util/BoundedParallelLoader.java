@@ -0,0 +1,98 @@
+package com.example.bay.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Loads a set of keys through an asynchronous {@link Loader} with at most {@code maxParallel}
+ * loads outstanding, collecting the results into one shared map. The callback fires once, after
+ * the last load has reported; keys whose load yields null are left out of the map.
+ *
+ * Used to fetch individual children such as users/{id} instead of downloading the parent node.
+ */
+public final class BoundedParallelLoader<K, V> {
+
+    public interface Loader<K, V> {
+        /** Starts loading {@code key}; must eventually call {@code sink.onLoaded} exactly once. */
+        void load(K key, Sink<V> sink);
+    }
+
+    public interface Sink<V> {
+        void onLoaded(V valueOrNull);
+    }
+
+    public interface Callback<K, V> {
+        void onComplete(Map<K, V> result);
+    }
+
+    private final ArrayDeque<K> pending;
+    private final Loader<K, V> loader;
+    private final Callback<K, V> callback;
+    private final Map<K, V> result = new HashMap<>();
+    private int outstanding;
+    private boolean completed;
+
+    private BoundedParallelLoader(ArrayDeque<K> pending, Loader<K, V> loader, Callback<K, V> callback) {
+        this.pending = pending;
+        this.loader = loader;
+        this.callback = callback;
+    }
+
+    public static <K, V> void loadAll(Collection<K> keys, int maxParallel,
+                                      Loader<K, V> loader, Callback<K, V> callback) {
+        ArrayDeque<K> pending = new ArrayDeque<>();
+        if (keys != null) {
+            // Duplicate keys are loaded once
+            for (K key : new LinkedHashSet<>(keys)) {
+                if (key != null) pending.add(key);
+            }
+        }
+
+        BoundedParallelLoader<K, V> batch = new BoundedParallelLoader<>(pending, loader, callback);
+        if (pending.isEmpty()) {
+            batch.finishIfDone();
+            return;
+        }
+
+        int slots = Math.max(1, maxParallel);
+        for (int i = 0; i < slots; i++) {
+            batch.next();
+        }
+    }
+
+    private void next() {
+        K key;
+        synchronized (this) {
+            key = pending.poll();
+            if (key == null) return;
+            outstanding++;
+        }
+
+        loader.load(key, new Sink<V>() {
+            private boolean reported;
+
+            @Override
+            public void onLoaded(V valueOrNull) {
+                synchronized (BoundedParallelLoader.this) {
+                    if (reported) return;
+                    reported = true;
+                    if (valueOrNull != null) result.put(key, valueOrNull);
+                    outstanding--;
+                }
+                if (!finishIfDone()) next();
+            }
+        });
+    }
+
+    private boolean finishIfDone() {
+        synchronized (this) {
+            if (completed || outstanding > 0 || !pending.isEmpty()) return completed;
+            completed = true;
+        }
+        callback.onComplete(result);
+        return true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bay.util;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Prepares a picked photo for a chat image message off the main thread. The photo is decoded once,
+ * subsampled to the upload size, and both the full image and the thumbnail are encoded from that
+ * bitmap. Results are delivered on the main thread.
+ */
+public class ChatImagePipeline {
+
+    public interface Callback {
+        void onSuccess(Result result);
+        void onError(String errorMsg);
+    }
+
+    public static class Result {
+        public final byte[] fullImage;
+        public final byte[] thumbnail;
+        public final int width;
+        public final int height;
+
+        Result(byte[] fullImage, byte[] thumbnail, int width, int height) {
+            this.fullImage = fullImage;
+            this.thumbnail = thumbnail;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static final String TAG = "ChatImagePipeline";
+    private static final int MAX_SIZE_KB = 1024;
+    private static final int THUMBNAIL_MAX_DIMENSION = 200;
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public static void process(Context context, Uri imageUri, Callback callback) {
+        Context appContext = context.getApplicationContext();
+
+        executor.execute(() -> {
+            // Anything thrown here would kill the task silently and leave the sender waiting on the callback
+            try {
+                Result result = prepare(appContext, imageUri);
+                if (result == null) {
+                    mainHandler.post(() -> callback.onError("Failed to decode image"));
+                } else {
+                    mainHandler.post(() -> callback.onSuccess(result));
+                }
+            } catch (RuntimeException | OutOfMemoryError e) {
+                Log.e(TAG, "Failed to prepare chat image", e);
+                mainHandler.post(() -> callback.onError("Failed to process image"));
+            }
+        });
+    }
+
+    private static Result prepare(Context appContext, Uri imageUri) {
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(appContext, imageUri, ImageUtils.FULL_MAX_DIMENSION);
+        if (bitmap == null) return null;
+
+        try {
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            byte[] fullImage = ImageUtils.compressToSize(bitmap, MAX_SIZE_KB);
+
+            Bitmap thumbBitmap = ImageUtils.resizeBitmap(bitmap, THUMBNAIL_MAX_DIMENSION, THUMBNAIL_MAX_DIMENSION);
+            byte[] thumbnail = ImageUtils.encodeJpeg(thumbBitmap, ImageUtils.THUMBNAIL_QUALITY);
+            if (thumbBitmap != bitmap) {
+                thumbBitmap.recycle();
+            }
+
+            return new Result(fullImage, thumbnail, width, height);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+}
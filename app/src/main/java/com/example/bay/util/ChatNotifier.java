@@ -0,0 +1,207 @@
+package com.example.bay.util;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.Person;
+
+import com.example.bay.HomeActivity;
+import com.example.bay.R;
+import com.example.bay.service.ForegroundChatListener;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Posts chat message notifications. Used by MyFirebaseMessagingService for pushes that arrive in
+ * the background and by ForegroundChatListener while the app is open, so both look the same.
+ *
+ * There is one notification per chat, keyed by chatId and drawn as a MessagingStyle with the last
+ * few messages. In the foreground a burst of messages is coalesced into one notify call; a push
+ * handled in the background is posted at once, since the process may not outlive a delayed post.
+ * After a chat alerts, its updates stay silent until ALERT_WINDOW_MS has passed.
+ */
+public class ChatNotifier {
+
+    private static final String CHANNEL_ID = "bay_chat_notifications";
+    private static final String CHANNEL_NAME = "Bay Chat Notifications";
+    private static final String CHANNEL_DESC = "Notifications for chat messages";
+
+    private static final String GROUP_KEY = "com.example.bay.CHAT_MESSAGES";
+    private static final int SUMMARY_ID = 0;
+
+    private static final int MAX_HISTORY = 6;
+    private static final long COALESCE_DELAY_MS = 400;
+    private static final long ALERT_WINDOW_MS = 30_000;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Map<String, ChatState> chats = new HashMap<>();
+    private static boolean channelCreated;
+    private static int summaryChatCount;
+
+    private static class ChatState {
+        final ArrayDeque<NotificationCompat.MessagingStyle.Message> history = new ArrayDeque<>();
+        String senderId;
+        String senderName;
+        long lastAlertAt;
+        boolean postPending;
+    }
+
+    // The sender name comes with the event; nothing is looked up here
+    public static synchronized void showChatMessage(Context context, String chatId, String senderId,
+                                                    String senderName, String message) {
+        if (chatId == null) return;
+        Context appContext = context.getApplicationContext();
+
+        ChatState state = chats.get(chatId);
+        if (state == null) {
+            state = new ChatState();
+            chats.put(chatId, state);
+        }
+
+        String name = senderName != null && !senderName.isEmpty() ? senderName : "Bay";
+        state.senderId = senderId;
+        state.senderName = name;
+        state.history.addLast(new NotificationCompat.MessagingStyle.Message(
+                message != null && !message.isEmpty() ? message : "📷 Sent an image",
+                System.currentTimeMillis(),
+                new Person.Builder().setName(name).setKey(senderId).build()));
+        while (state.history.size() > MAX_HISTORY) {
+            state.history.removeFirst();
+        }
+
+        if (!ForegroundChatListener.isInForeground()) {
+            post(appContext, chatId);
+        } else if (!state.postPending) {
+            // Messages arriving within the delay share one notify call
+            state.postPending = true;
+            mainHandler.postDelayed(() -> post(appContext, chatId), COALESCE_DELAY_MS);
+        }
+    }
+
+    // Called when the chat is opened: drop its notification and history
+    public static synchronized void clearChat(Context context, String chatId) {
+        if (chatId == null || chats.remove(chatId) == null) return;
+
+        NotificationManager notificationManager =
+                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager != null) {
+            notificationManager.cancel(chatId.hashCode());
+            if (chats.size() < 2) {
+                notificationManager.cancel(SUMMARY_ID);
+                summaryChatCount = chats.size();
+            }
+        }
+    }
+
+    private static synchronized void post(Context context, String chatId) {
+        ChatState state = chats.get(chatId);
+        if (state == null) return;
+        state.postPending = false;
+
+        if (!channelCreated) {
+            createNotificationChannel(context);
+            channelCreated = true;
+        }
+
+        Intent intent = new Intent(context, HomeActivity.class);
+        intent.putExtra("notification", true);
+        intent.putExtra("chatId", chatId);
+        intent.putExtra("userId", state.senderId);
+        intent.putExtra("navigateTo", "personal_message");
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
+
+        int notificationId = chatId.hashCode();
+        PendingIntent pendingIntent = PendingIntent.getActivity(context, notificationId, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+
+        NotificationCompat.MessagingStyle style =
+                new NotificationCompat.MessagingStyle(new Person.Builder().setName("អ្នក").build());
+        for (NotificationCompat.MessagingStyle.Message message : state.history) {
+            style.addMessage(message);
+        }
+
+        long now = System.currentTimeMillis();
+        boolean alert = now - state.lastAlertAt >= ALERT_WINDOW_MS;
+        if (alert) {
+            state.lastAlertAt = now;
+        }
+
+        Uri defaultSoundUri = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+
+        NotificationCompat.Builder notificationBuilder =
+                new NotificationCompat.Builder(context, CHANNEL_ID)
+                        .setSmallIcon(R.drawable.ic_bell)
+                        .setContentTitle(state.senderName)
+                        .setContentText(state.history.getLast().getText())
+                        .setStyle(style)
+                        .setNumber(state.history.size())
+                        .setGroup(GROUP_KEY)
+                        .setAutoCancel(true)
+                        .setSound(defaultSoundUri)
+                        .setSilent(!alert)
+                        .setContentIntent(pendingIntent)
+                        .setPriority(NotificationCompat.PRIORITY_HIGH)
+                        .setCategory(NotificationCompat.CATEGORY_MESSAGE)
+                        .setVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+
+        NotificationManager notificationManager =
+                (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (notificationManager == null) return;
+
+        notificationManager.notify(notificationId, notificationBuilder.build());
+
+        // The group summary only matters once two chats are showing; refresh it when that number changes
+        if (chats.size() >= 2 && chats.size() != summaryChatCount) {
+            notificationManager.notify(SUMMARY_ID, buildSummary(context));
+        }
+        summaryChatCount = chats.size();
+    }
+
+    private static android.app.Notification buildSummary(Context context) {
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle();
+        for (ChatState state : chats.values()) {
+            inbox.addLine(state.senderName + ": " + state.history.getLast().getText());
+        }
+        inbox.setSummaryText(chats.size() + " ការសន្ទនា");
+
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_bell)
+                .setStyle(inbox)
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setSilent(true)
+                .setAutoCancel(true)
+                .build();
+    }
+
+    public static void createNotificationChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                    CHANNEL_ID,
+                    CHANNEL_NAME,
+                    NotificationManager.IMPORTANCE_HIGH
+            );
+            channel.setDescription(CHANNEL_DESC);
+            channel.enableLights(true);
+            channel.enableVibration(true);
+            channel.setShowBadge(true);
+            channel.setLockscreenVisibility(NotificationCompat.VISIBILITY_PUBLIC);
+
+            NotificationManager notificationManager = context.getSystemService(NotificationManager.class);
+            if (notificationManager != null) {
+                notificationManager.createNotificationChannel(channel);
+            }
+        }
+    }
+}
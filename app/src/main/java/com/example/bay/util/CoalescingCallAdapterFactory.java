@@ -0,0 +1,207 @@
+package com.example.bay.util;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Request;
+import okio.Timeout;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Callback;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.http.GET;
+
+/**
+ * Single-flight wrapper for Retrofit GET calls. While a GET for a URL is in flight,
+ * further enqueues of the same URL and response type wait for it instead of opening another
+ * request, and every waiting Callback receives the same decoded Response.
+ * Callers share the decoded body, so they should treat it as read-only.
+ */
+public class CoalescingCallAdapterFactory extends CallAdapter.Factory {
+
+    private static final AtomicLong totalRequests = new AtomicLong();
+    private static final AtomicLong coalescedRequests = new AtomicLong();
+
+    private final Map<String, List<Waiter<?>>> inFlight = new HashMap<>();
+
+    public static CoalescingCallAdapterFactory create() {
+        return new CoalescingCallAdapterFactory();
+    }
+
+    private CoalescingCallAdapterFactory() {}
+
+    /** Number of GETs enqueued through Retrofit services. */
+    public static long getTotalRequests() {
+        return totalRequests.get();
+    }
+
+    /** Number of GETs that were served by another in-flight call instead of the network. */
+    public static long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@NonNull Type returnType, @NonNull Annotation[] annotations,
+                                 @NonNull Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !isGet(annotations)) {
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        CallAdapter<Object, Call<Object>> next = (CallAdapter<Object, Call<Object>>)
+                retrofit.nextCallAdapter(this, returnType, annotations);
+
+        Type responseType = next.responseType();
+        return new CallAdapter<Object, Call<Object>>() {
+            @NonNull
+            @Override
+            public Type responseType() {
+                return responseType;
+            }
+
+            @NonNull
+            @Override
+            public Call<Object> adapt(@NonNull Call<Object> call) {
+                return new CoalescingCall<>(next.adapt(call), responseType);
+            }
+        };
+    }
+
+    private static boolean isGet(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof GET) return true;
+        }
+        return false;
+    }
+
+    private static class Waiter<T> {
+        final CoalescingCall<T> call;
+        final Callback<T> callback;
+
+        Waiter(CoalescingCall<T> call, Callback<T> callback) {
+            this.call = call;
+            this.callback = callback;
+        }
+
+        @SuppressWarnings("unchecked")
+        void deliver(Response<?> response) {
+            if (!call.isCanceled()) {
+                callback.onResponse(call, (Response<T>) response);
+            }
+        }
+
+        void fail(Throwable t) {
+            if (!call.isCanceled()) {
+                callback.onFailure(call, t);
+            }
+        }
+    }
+
+    private final class CoalescingCall<T> implements Call<T> {
+
+        private final Call<T> delegate;
+        private final Type responseType;
+        private volatile boolean executed;
+        private volatile boolean canceled;
+
+        CoalescingCall(Call<T> delegate, Type responseType) {
+            this.delegate = delegate;
+            this.responseType = responseType;
+        }
+
+        @Override
+        public void enqueue(@NonNull Callback<T> callback) {
+            if (executed) throw new IllegalStateException("Already executed.");
+            executed = true;
+            totalRequests.incrementAndGet();
+
+            // The same URL decoded as another type is a different result, so the type is part of the key
+            String key = responseType + " " + delegate.request().url();
+            synchronized (inFlight) {
+                List<Waiter<?>> waiters = inFlight.get(key);
+                if (waiters != null) {
+                    waiters.add(new Waiter<>(this, callback));
+                    coalescedRequests.incrementAndGet();
+                    return;
+                }
+                waiters = new ArrayList<>();
+                waiters.add(new Waiter<>(this, callback));
+                inFlight.put(key, waiters);
+            }
+
+            delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(@NonNull Call<T> call, @NonNull Response<T> response) {
+                    for (Waiter<?> waiter : takeWaiters(key)) {
+                        waiter.deliver(response);
+                    }
+                }
+
+                @Override
+                public void onFailure(@NonNull Call<T> call, @NonNull Throwable t) {
+                    for (Waiter<?> waiter : takeWaiters(key)) {
+                        waiter.fail(t);
+                    }
+                }
+            });
+        }
+
+        private List<Waiter<?>> takeWaiters(String key) {
+            synchronized (inFlight) {
+                List<Waiter<?>> waiters = inFlight.remove(key);
+                return waiters != null ? waiters : new ArrayList<>();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Response<T> execute() throws IOException {
+            executed = true;
+            totalRequests.incrementAndGet();
+            return delegate.execute();
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return executed;
+        }
+
+        // Only detaches this caller; the shared request keeps running for the other waiters.
+        @Override
+        public void cancel() {
+            canceled = true;
+        }
+
+        @Override
+        public boolean isCanceled() {
+            return canceled;
+        }
+
+        @NonNull
+        @Override
+        public Call<T> clone() {
+            return new CoalescingCall<>(delegate.clone(), responseType);
+        }
+
+        @NonNull
+        @Override
+        public Request request() {
+            return delegate.request();
+        }
+
+        @NonNull
+        @Override
+        public Timeout timeout() {
+            return delegate.timeout();
+        }
+    }
+}
@@ -1,11 +1,27 @@
 package com.example.bay.util;
 
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+
+import java.util.Map;
 
 public class FirebaseDBHelper {
     private static FirebaseDatabase database;
 
+    // A migration claim left by a client that never finished lapses after this long
+    private static final long MIGRATION_CLAIM_TTL_MS = 10 * 60 * 1000;
+
+    public interface BatchWriteCallback {
+        void onSuccess();
+        void onError(String error);
+    }
+
     public static FirebaseDatabase getDatabase() {
         if (database == null) {
             synchronized (FirebaseDBHelper.class) {
@@ -36,10 +52,20 @@ public class FirebaseDBHelper {
         return getChatsRef().child(chatId);
     }
 
+    // chats/{chatId}/lastRead/{userId}: newest message time the user has seen
+    public static DatabaseReference getLastReadRef(String chatId, String userId) {
+        return getChatRef(chatId).child("lastRead").child(userId);
+    }
+
     public static DatabaseReference getUserChatsRef(String userId) {
         return getDatabase().getReference("user-chats").child(userId);
     }
 
+    // chat-partners/{userId}/{partnerId} = chatId
+    public static DatabaseReference getChatPartnersRef(String userId) {
+        return getDatabase().getReference("chat-partners").child(userId);
+    }
+
     // Messages
     public static DatabaseReference getMessagesRef() {
         return getDatabase().getReference("messages");
@@ -63,9 +89,9 @@ public class FirebaseDBHelper {
         return getDatabase().getReference("online-status").child(userId);
     }
 
-    // Unread Counts
+    // Unread Counts (kept on the inbox entry)
     public static DatabaseReference getUnreadCountRef(String userId, String chatId) {
-        return getDatabase().getReference("unread-counts").child(userId).child(chatId);
+        return getUserChatsRef(userId).child(chatId).child("unreadCount");
     }
 
     // Device Tokens for FCM Notifications
@@ -95,6 +121,66 @@ public class FirebaseDBHelper {
         return getDatabase().getReference("user-posts").child(userId);
     }
 
+    // Community post cards (full nodes) and their lean list summaries
+    public static DatabaseReference getPostCardItemsRef() {
+        return getDatabase().getReference("postCardItems");
+    }
+
+    public static DatabaseReference getPostCardItemRef(String postId) {
+        return getPostCardItemsRef().child(postId);
+    }
+
+    public static DatabaseReference getPostSummariesRef() {
+        return getDatabase().getReference("postSummaries");
+    }
+
+    public static DatabaseReference getPostSummaryRef(String postId) {
+        return getPostSummariesRef().child(postId);
+    }
+
+    // Root-relative paths -> values, sent as one updateChildren (all-or-nothing) with one completion.
+    // Realtime Database caps a write by payload size (16 MB from the SDK), not by path count, so the
+    // batch is never split: chunks written one after another could fail half way and leave e.g.
+    // notification flags and notification-counts out of step.
+    public static void batchUpdate(Map<String, Object> updates, BatchWriteCallback callback) {
+        getDatabase().getReference().updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    if (callback != null) callback.onSuccess();
+                })
+                .addOnFailureListener(e -> {
+                    if (callback != null) callback.onError(e.getMessage());
+                });
+    }
+
+    // One-off data migrations, marked done per name
+    public static DatabaseReference getMigrationRef(String name) {
+        return getDatabase().getReference("migrations").child(name);
+    }
+
+    // Global migrations run on the one client whose transaction claims migrations/{name};
+    // the rest skip it. The migration replaces the claim with `true` when it is done.
+    public static void claimMigration(String name, Runnable onClaimed) {
+        getMigrationRef(name).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                if (Boolean.TRUE.equals(currentData.getValue())) return Transaction.abort();
+
+                long now = System.currentTimeMillis();
+                Long claimedAt = currentData.child("claimedAt").getValue(Long.class);
+                if (claimedAt != null && now - claimedAt < MIGRATION_CLAIM_TTL_MS) return Transaction.abort();
+
+                currentData.child("claimedAt").setValue(now);
+                return Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot currentData) {
+                if (committed) onClaimed.run();
+            }
+        });
+    }
+
     // Marketplace
     public static DatabaseReference getMarketplaceRef() {
         return getDatabase().getReference("marketplace");
@@ -108,6 +194,11 @@ public class FirebaseDBHelper {
         return getDatabase().getReference("user-marketplace").child(userId);
     }
 
+    // Shopping listings; only used here to mint push keys for REST writes
+    public static DatabaseReference getShoppingItemsRef() {
+        return getDatabase().getReference("shoppingItems");
+    }
+
     // Communities
     public static DatabaseReference getCommunitiesRef() {
         return getDatabase().getReference("communities");
@@ -217,6 +308,11 @@ public class FirebaseDBHelper {
         return getUserNotificationsRef(userId).child(notificationId);
     }
 
+    // notification-counts/{userId} = unread notifications, kept in step by every writer
+    public static DatabaseReference getNotificationUnreadCountRef(String userId) {
+        return getDatabase().getReference("notification-counts").child(userId);
+    }
+
     // FIXED: Changed from FirebaseDatabase.getInstance() to getDatabase()
     public static DatabaseReference getUserTokenRef(String userId) {
         return getDatabase().getReference("tokens").child(userId);
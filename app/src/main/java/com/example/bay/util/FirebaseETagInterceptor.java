@@ -0,0 +1,35 @@
+package com.example.bay.util;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that asks the Firebase REST API to return an ETag for every GET.
+ * The ETag is stored with the response in the OkHttp disk cache, which replays it as
+ * If-None-Match on the next request for the same URL and serves the cached body when
+ * the server answers 304 Not Modified.
+ */
+public class FirebaseETagInterceptor implements Interceptor {
+
+    private static final String HEADER_FIREBASE_ETAG = "X-Firebase-ETag";
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (!"GET".equals(request.method()) || request.header(HEADER_FIREBASE_ETAG) != null) {
+            return chain.proceed(request);
+        }
+
+        Request withETag = request.newBuilder()
+                .header(HEADER_FIREBASE_ETAG, "true")
+                .build();
+        return chain.proceed(withETag);
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.bay.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+
+/**
+ * In-memory mirror of a Firebase collection kept current through the REST streaming API
+ * ({@code Accept: text/event-stream}). The first {@code put} carries the whole collection;
+ * after that each {@code put}/{@code patch} only carries the changed subtree, and only the
+ * affected top-level children are decoded again.
+ *
+ * The stream is open while the LiveData has active observers and closed otherwise.
+ */
+public class FirebaseLiveMirror<T> extends LiveData<Map<String, T>> {
+
+    private static final String TAG = "FirebaseLiveMirror";
+    private static final long RECONNECT_DELAY_MS = 3_000;
+    private static final long MAX_RECONNECT_DELAY_MS = 60_000;
+
+    private static OkHttpClient streamingClient;
+
+    private final String path;
+    private final Type valueType;
+    private final BiConsumer<String, T> keyBinder;
+    private final Gson gson = new Gson();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Raw JSON tree and decoded children, guarded by treeLock. A cancelled reader can still be
+    // mid-event when connect() starts the next one, so only the current call's events apply.
+    private final Object treeLock = new Object();
+    private JsonObject tree = new JsonObject();
+    private final Map<String, T> items = new LinkedHashMap<>();
+
+    private volatile Call call;
+    private boolean active;
+    private long reconnectDelay = RECONNECT_DELAY_MS;
+
+    /**
+     * @param path      database path without ".json", e.g. "shoppingItems"
+     * @param keyBinder optional hook to copy the child key into the decoded value
+     */
+    public FirebaseLiveMirror(String path, Type valueType, BiConsumer<String, T> keyBinder) {
+        this.path = path;
+        this.valueType = valueType;
+        this.keyBinder = keyBinder;
+    }
+
+    private static synchronized OkHttpClient getStreamingClient() {
+        if (streamingClient == null) {
+            // Event streams are long-lived and must not be written to the HTTP cache
+            streamingClient = RetrofitClient.getHttpClient().newBuilder()
+                    .readTimeout(0, java.util.concurrent.TimeUnit.MILLISECONDS)
+                    .cache(null)
+                    .build();
+        }
+        return streamingClient;
+    }
+
+    @Override
+    protected void onActive() {
+        active = true;
+        connect();
+    }
+
+    @Override
+    protected void onInactive() {
+        active = false;
+        mainHandler.removeCallbacksAndMessages(null);
+        if (call != null) {
+            call.cancel();
+            call = null;
+        }
+    }
+
+    private void connect() {
+        if (!active || call != null) return;
+
+        Request request = new Request.Builder()
+                .url(RetrofitClient.getBaseUrl() + path + ".json")
+                .header("Accept", "text/event-stream")
+                .build();
+
+        call = getStreamingClient().newCall(request);
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(@NonNull Call c, @NonNull Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        Log.e(TAG, "Stream " + path + " failed: " + response.code());
+                    } else {
+                        reconnectDelay = RECONNECT_DELAY_MS;
+                        readEvents(c, body.source());
+                    }
+                } catch (IOException e) {
+                    Log.d(TAG, "Stream " + path + " closed: " + e.getMessage());
+                }
+                scheduleReconnect(c);
+            }
+
+            @Override
+            public void onFailure(@NonNull Call c, @NonNull IOException e) {
+                Log.e(TAG, "Stream " + path + " error: " + e.getMessage());
+                scheduleReconnect(c);
+            }
+        });
+    }
+
+    private void scheduleReconnect(Call finished) {
+        mainHandler.post(() -> {
+            if (call != finished) return;
+            call = null;
+            if (!active) return;
+
+            long delay = reconnectDelay;
+            reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            mainHandler.postDelayed(this::connect, delay);
+        });
+    }
+
+    private void readEvents(Call owner, BufferedSource source) throws IOException {
+        String event = null;
+        StringBuilder data = new StringBuilder();
+
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            if (line.isEmpty()) {
+                if (event != null) {
+                    if (!dispatch(owner, event, data.toString())) return;
+                }
+                event = null;
+                data.setLength(0);
+            } else if (line.startsWith("event:")) {
+                event = line.substring(6).trim();
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) data.append('\n');
+                data.append(line.substring(5).trim());
+            }
+        }
+    }
+
+    /** Returns false when the server ends the stream or the call has been replaced. */
+    private boolean dispatch(Call owner, String event, String data) {
+        switch (event) {
+            case "put":
+            case "patch":
+                return applyEvent(owner, "patch".equals(event), JsonParser.parseString(data).getAsJsonObject());
+            case "keep-alive":
+                return true;
+            case "cancel":
+            case "auth_revoked":
+                Log.w(TAG, "Stream " + path + " ended by server: " + event);
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private boolean applyEvent(Call owner, boolean patch, JsonObject event) {
+        synchronized (treeLock) {
+            if (owner != call) return false;
+            applyEventLocked(patch, event);
+        }
+        return true;
+    }
+
+    private void applyEventLocked(boolean patch, JsonObject event) {
+        List<String> segments = splitPath(event.get("path").getAsString());
+        JsonElement data = event.get("data");
+
+        if (segments.isEmpty()) {
+            if (patch) {
+                for (Map.Entry<String, JsonElement> child : data.getAsJsonObject().entrySet()) {
+                    setChild(tree, child.getKey(), child.getValue());
+                    decodeChild(child.getKey());
+                }
+            } else {
+                tree = data != null && data.isJsonObject() ? data.getAsJsonObject() : new JsonObject();
+                items.clear();
+                for (String key : tree.keySet()) {
+                    decodeChild(key);
+                }
+            }
+        } else {
+            JsonObject parent = tree;
+            for (int i = 0; i < segments.size() - 1; i++) {
+                JsonElement next = parent.get(segments.get(i));
+                if (next == null || !next.isJsonObject()) {
+                    next = new JsonObject();
+                    parent.add(segments.get(i), next);
+                }
+                parent = next.getAsJsonObject();
+            }
+
+            String last = segments.get(segments.size() - 1);
+            if (patch) {
+                JsonElement target = parent.get(last);
+                if (target == null || !target.isJsonObject()) {
+                    target = new JsonObject();
+                    parent.add(last, target);
+                }
+                for (Map.Entry<String, JsonElement> child : data.getAsJsonObject().entrySet()) {
+                    setChild(target.getAsJsonObject(), child.getKey(), child.getValue());
+                }
+            } else {
+                setChild(parent, last, data);
+            }
+            decodeChild(segments.get(0));
+        }
+
+        postValue(Collections.unmodifiableMap(new LinkedHashMap<>(items)));
+    }
+
+    private static void setChild(JsonObject parent, String key, JsonElement value) {
+        if (value == null || value instanceof JsonNull) {
+            parent.remove(key);
+        } else {
+            parent.add(key, value);
+        }
+    }
+
+    private void decodeChild(String key) {
+        JsonElement element = tree.get(key);
+        if (element == null || element instanceof JsonNull) {
+            items.remove(key);
+            return;
+        }
+
+        try {
+            T value = gson.fromJson(element, valueType);
+            if (value == null) {
+                items.remove(key);
+                return;
+            }
+            if (keyBinder != null) {
+                keyBinder.accept(key, value);
+            }
+            items.put(key, value);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Skipping undecodable child " + path + "/" + key + ": " + e.getMessage());
+            items.remove(key);
+        }
+    }
+
+    private static List<String> splitPath(String eventPath) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : eventPath.split("/")) {
+            if (!segment.isEmpty()) segments.add(segment);
+        }
+        return segments;
+    }
+}
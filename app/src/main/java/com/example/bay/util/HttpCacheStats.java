@@ -0,0 +1,83 @@
+package com.example.bay.util;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Application interceptor that counts, per endpoint path, how many GETs were answered
+ * from the disk cache (fresh or revalidated with 304) and how many needed a full download.
+ */
+public class HttpCacheStats implements Interceptor {
+
+    private static final HttpCacheStats INSTANCE = new HttpCacheStats();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public static HttpCacheStats getInstance() {
+        return INSTANCE;
+    }
+
+    private HttpCacheStats() {}
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        if ("GET".equals(request.method())) {
+            Counter counter = counters.computeIfAbsent(request.url().encodedPath(), k -> new Counter());
+            if (isCacheHit(response)) {
+                counter.hits.incrementAndGet();
+            } else {
+                counter.misses.incrementAndGet();
+            }
+        }
+        return response;
+    }
+
+    private static boolean isCacheHit(Response response) {
+        Response network = response.networkResponse();
+        if (network == null) {
+            return response.cacheResponse() != null;
+        }
+        return network.code() == 304;
+    }
+
+    public double getHitRatio(String endpointPath) {
+        Counter counter = counters.get(endpointPath);
+        return counter != null ? counter.ratio() : 0d;
+    }
+
+    public Map<String, Double> getHitRatios() {
+        Map<String, Double> ratios = new HashMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            ratios.put(entry.getKey(), entry.getValue().ratio());
+        }
+        return ratios;
+    }
+
+    public void reset() {
+        counters.clear();
+    }
+
+    private static class Counter {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+
+        double ratio() {
+            long h = hits.get();
+            long total = h + misses.get();
+            return total == 0 ? 0d : (double) h / total;
+        }
+    }
+}
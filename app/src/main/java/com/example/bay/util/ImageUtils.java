@@ -19,47 +19,37 @@ public class ImageUtils {
 
     private static final String TAG = "ImageUtils";
 
-    public static byte[] compressImage(Context context, Uri imageUri, int maxSizeKB) {
-        try {
-            InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
-            if (inputStream == null) {
-                return null;
-            }
-
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream);
-            inputStream.close();
-
-            if (bitmap == null) {
-                return null;
-            }
+    public static final int FULL_MAX_DIMENSION = 1600;
+    public static final int THUMBNAIL_QUALITY = 70;
+    private static final int MAX_QUALITY = 85;
+    private static final int MIN_QUALITY = 20;
 
-            bitmap = fixRotation(context, imageUri, bitmap);
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            int quality = 85;
-            int maxSizeBytes = maxSizeKB * 1024;
-
-            do {
-                outputStream.reset();
-                bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream);
-                quality -= 5;
-            } while (outputStream.size() > maxSizeBytes && quality > 20);
-
-            bitmap.recycle();
-
-            byte[] result = outputStream.toByteArray();
-            outputStream.close();
+    public static byte[] compressImage(Context context, Uri imageUri, int maxSizeKB) {
+        Bitmap bitmap = decodeSampledBitmap(context, imageUri, FULL_MAX_DIMENSION);
+        if (bitmap == null) {
+            return null;
+        }
 
-            Log.d(TAG, "Compressed image to " + result.length + " bytes, quality: " + quality);
-            return result;
+        byte[] result = compressToSize(bitmap, maxSizeKB);
+        bitmap.recycle();
+        return result;
+    }
 
-        } catch (IOException e) {
-            Log.e(TAG, "Error compressing image: " + e.getMessage());
+    public static byte[] createThumbnail(Context context, Uri imageUri, int maxDimension) {
+        Bitmap bitmap = decodeSampledBitmap(context, imageUri, maxDimension);
+        if (bitmap == null) {
             return null;
         }
+
+        byte[] result = encodeJpeg(bitmap, THUMBNAIL_QUALITY);
+        bitmap.recycle();
+
+        Log.d(TAG, "Created thumbnail: " + result.length + " bytes");
+        return result;
     }
 
-    public static byte[] createThumbnail(Context context, Uri imageUri, int maxDimension) {
+    // Reads the bounds first so the decoder subsamples; a full-resolution camera photo is never allocated
+    public static Bitmap decodeSampledBitmap(Context context, Uri imageUri, int maxDimension) {
         try {
             InputStream inputStream = context.getContentResolver().openInputStream(imageUri);
             if (inputStream == null) {
@@ -79,34 +69,74 @@ public class ImageUtils {
             options.inJustDecodeBounds = false;
 
             inputStream = context.getContentResolver().openInputStream(imageUri);
-            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
-            if (inputStream != null) {
-                inputStream.close();
+            if (inputStream == null) {
+                return null;
             }
+            Bitmap bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+            inputStream.close();
 
             if (bitmap == null) {
                 return null;
             }
 
-            bitmap = fixRotation(context, imageUri, bitmap);
-
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            bitmap.compress(Bitmap.CompressFormat.JPEG, 70, outputStream);
-
-            bitmap.recycle();
-
-            byte[] result = outputStream.toByteArray();
-            outputStream.close();
+            // inSampleSize only halves, so finish with one exact scale down
+            Bitmap scaled = resizeBitmap(bitmap, maxDimension, maxDimension);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
 
-            Log.d(TAG, "Created thumbnail: " + result.length + " bytes");
-            return result;
+            return fixRotation(context, imageUri, scaled);
 
         } catch (IOException e) {
-            Log.e(TAG, "Error creating thumbnail: " + e.getMessage());
+            Log.e(TAG, "Error decoding image: " + e.getMessage());
             return null;
         }
     }
 
+    // Highest quality in [MIN_QUALITY, MAX_QUALITY] that fits, found by binary search
+    public static byte[] compressToSize(Bitmap bitmap, int maxSizeKB) {
+        int maxSizeBytes = maxSizeKB * 1024;
+
+        byte[] best = encodeJpeg(bitmap, MAX_QUALITY);
+        int bestQuality = MAX_QUALITY;
+
+        if (best.length > maxSizeBytes) {
+            int low = MIN_QUALITY;
+            int high = MAX_QUALITY - 1;
+            byte[] smallest = null;
+
+            while (low <= high) {
+                int quality = (low + high) >>> 1;
+                byte[] encoded = encodeJpeg(bitmap, quality);
+                if (encoded.length <= maxSizeBytes) {
+                    best = encoded;
+                    bestQuality = quality;
+                    low = quality + 1;
+                } else {
+                    if (quality == MIN_QUALITY) {
+                        smallest = encoded;
+                    }
+                    high = quality - 1;
+                }
+            }
+
+            // Nothing fits: send the lowest quality rather than fail
+            if (best.length > maxSizeBytes) {
+                best = smallest != null ? smallest : encodeJpeg(bitmap, MIN_QUALITY);
+                bestQuality = MIN_QUALITY;
+            }
+        }
+
+        Log.d(TAG, "Compressed image to " + best.length + " bytes, quality: " + bestQuality);
+        return best;
+    }
+
+    public static byte[] encodeJpeg(Bitmap bitmap, int quality) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream);
+        return outputStream.toByteArray();
+    }
+
     private static int calculateInSampleSize(BitmapFactory.Options options,
                                              int reqWidth, int reqHeight) {
         final int height = options.outHeight;
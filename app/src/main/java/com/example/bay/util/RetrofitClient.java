@@ -1,35 +1,77 @@
     package com.example.bay.util;
 
+    import android.content.Context;
+
+    import com.example.bay.BuildConfig;
+    import com.google.gson.Gson;
+
+    import java.io.File;
     import java.util.concurrent.TimeUnit;
 
+    import okhttp3.Cache;
     import okhttp3.OkHttpClient;
     import okhttp3.logging.HttpLoggingInterceptor;
     import retrofit2.Retrofit;
     import retrofit2.converter.gson.GsonConverterFactory;
     public class RetrofitClient {
+        private static final long HTTP_CACHE_SIZE = 20L * 1024 * 1024;
+
+        private static final Gson gson = new Gson();
+
         private static Retrofit retrofit = null;
+        private static OkHttpClient httpClient = null;
+        private static Cache httpCache = null;
         private static String baseUrl = "https://baydigitalecosystemmobileapp-default-rtdb.firebaseio.com/";
 
+        public static synchronized void init(Context context) {
+            if (httpCache == null) {
+                File cacheDir = new File(context.getApplicationContext().getCacheDir(), "http");
+                httpCache = new Cache(cacheDir, HTTP_CACHE_SIZE);
+                httpClient = null;
+                retrofit = null;
+            }
+        }
+
         public static void setBaseUrl(String url) {
             baseUrl = url.endsWith("/") ? url : url + "/";
             retrofit = null;
         }
 
-        public static Retrofit getClient() {
-            if (retrofit == null) {
-                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-                loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+        public static String getBaseUrl() {
+            return baseUrl;
+        }
 
-                OkHttpClient client = new OkHttpClient.Builder()
-                        .addInterceptor(loggingInterceptor)
+        public static synchronized OkHttpClient getHttpClient() {
+            if (httpClient == null) {
+                OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                        .addInterceptor(HttpCacheStats.getInstance())
+                        .addNetworkInterceptor(new FirebaseETagInterceptor())
                         .connectTimeout(15, TimeUnit.SECONDS)
-                        .readTimeout(15, TimeUnit.SECONDS)
-                        .build();
+                        .readTimeout(15, TimeUnit.SECONDS);
 
+                // Headers only: body logging would buffer whole collections before the streaming converter
+                if (BuildConfig.DEBUG) {
+                    HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+                    loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.HEADERS);
+                    builder.addInterceptor(loggingInterceptor);
+                }
+
+                if (httpCache != null) {
+                    builder.cache(httpCache);
+                }
+                httpClient = builder.build();
+            }
+            return httpClient;
+        }
+
+        public static synchronized Retrofit getClient() {
+            if (retrofit == null) {
                 retrofit = new Retrofit.Builder()
                         .baseUrl(baseUrl)
-                        .client(client)
-                        .addConverterFactory(GsonConverterFactory.create())
+                        .client(getHttpClient())
+                        .addCallAdapterFactory(StreamingMapCallAdapterFactory.create(gson))
+                        .addCallAdapterFactory(CoalescingCallAdapterFactory.create())
+                        .addConverterFactory(GsonConverterFactory.create(gson))
                         .build();
             }
             return retrofit;
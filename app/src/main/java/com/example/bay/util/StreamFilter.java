@@ -0,0 +1,44 @@
+package com.example.bay.util;
+
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * Per-call filter applied by {@link StreamingMapConverter} while a Firebase collection is parsed.
+ * Entries that fail the predicate are dropped as soon as they are read; with a limit, only the
+ * first {@code limit} matches (or the best {@code limit} by {@code order}) are kept.
+ */
+public final class StreamFilter<T> {
+
+    final Predicate<? super T> predicate;
+    final Comparator<? super T> order;
+    final int limit;
+
+    private StreamFilter(Predicate<? super T> predicate, Comparator<? super T> order, int limit) {
+        this.predicate = predicate;
+        this.order = order;
+        this.limit = limit;
+    }
+
+    public static <T> StreamFilter<T> all() {
+        return new StreamFilter<>(null, null, Integer.MAX_VALUE);
+    }
+
+    public static <T> StreamFilter<T> where(Predicate<? super T> predicate) {
+        return new StreamFilter<>(predicate, null, Integer.MAX_VALUE);
+    }
+
+    /** Keeps the first {@code limit} matching entries in payload order. */
+    public StreamFilter<T> limit(int limit) {
+        return new StreamFilter<>(predicate, null, limit);
+    }
+
+    /** Keeps the {@code limit} matching entries that sort first by {@code order}. */
+    public StreamFilter<T> top(int limit, Comparator<? super T> order) {
+        return new StreamFilter<>(predicate, order, limit);
+    }
+
+    boolean accepts(T value) {
+        return value != null && (predicate == null || predicate.test(value));
+    }
+}
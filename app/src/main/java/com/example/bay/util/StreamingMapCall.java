@@ -0,0 +1,75 @@
+package com.example.bay.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+import java.io.IOException;
+import java.util.Map;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Service return type for Firebase collections that should be parsed with a per-call
+ * {@link StreamFilter}. Parsing runs on the OkHttp thread; results are delivered on the main thread.
+ * Service methods returning this type must be annotated with {@code @Streaming}.
+ */
+public class StreamingMapCall<T> {
+
+    public interface Callback<T> {
+        void onSuccess(Map<String, T> result);
+        void onError(String errorMsg);
+    }
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final Call<ResponseBody> rawCall;
+    private final Gson gson;
+    private final TypeAdapter<T> adapter;
+
+    StreamingMapCall(Call<ResponseBody> rawCall, Gson gson, TypeAdapter<T> adapter) {
+        this.rawCall = rawCall;
+        this.gson = gson;
+        this.adapter = adapter;
+    }
+
+    public void enqueue(StreamFilter<T> filter, Callback<T> callback) {
+        rawCall.enqueue(new retrofit2.Callback<ResponseBody>() {
+            @Override
+            public void onResponse(@NonNull Call<ResponseBody> call, @NonNull Response<ResponseBody> response) {
+                ResponseBody body = response.body();
+                if (!response.isSuccessful() || body == null) {
+                    if (body != null) body.close();
+                    String error = "Request failed. Code: " + response.code();
+                    mainHandler.post(() -> callback.onError(error));
+                    return;
+                }
+
+                try {
+                    Map<String, T> result = new StreamingMapConverter<>(gson, adapter, filter).convert(body);
+                    mainHandler.post(() -> callback.onSuccess(result));
+                } catch (IOException | RuntimeException e) {
+                    String error = "Failed to parse response: " + e.getMessage();
+                    mainHandler.post(() -> callback.onError(error));
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ResponseBody> call, @NonNull Throwable t) {
+                String error = "Network error: " + t.getMessage();
+                mainHandler.post(() -> callback.onError(error));
+            }
+        });
+    }
+
+    public void cancel() {
+        rawCall.cancel();
+    }
+}
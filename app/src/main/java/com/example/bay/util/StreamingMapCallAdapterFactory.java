@@ -0,0 +1,64 @@
+package com.example.bay.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.CallAdapter;
+import retrofit2.Retrofit;
+
+/**
+ * Lets service methods return {@link StreamingMapCall}. The raw body is handed over unparsed
+ * so {@link StreamingMapConverter} can filter entries while reading them.
+ */
+public class StreamingMapCallAdapterFactory extends CallAdapter.Factory {
+
+    private final Gson gson;
+
+    public static StreamingMapCallAdapterFactory create(Gson gson) {
+        return new StreamingMapCallAdapterFactory(gson);
+    }
+
+    private StreamingMapCallAdapterFactory(Gson gson) {
+        this.gson = gson;
+    }
+
+    @Override
+    public CallAdapter<?, ?> get(@NonNull Type returnType, @NonNull Annotation[] annotations,
+                                 @NonNull Retrofit retrofit) {
+        if (getRawType(returnType) != StreamingMapCall.class) {
+            return null;
+        }
+        if (!(returnType instanceof ParameterizedType)) {
+            throw new IllegalStateException("StreamingMapCall must be parameterized, e.g. StreamingMapCall<ShoppingItem>");
+        }
+
+        Type valueType = getParameterUpperBound(0, (ParameterizedType) returnType);
+        TypeAdapter<?> adapter = gson.getAdapter(TypeToken.get(valueType));
+        return newAdapter(adapter);
+    }
+
+    private <T> CallAdapter<ResponseBody, StreamingMapCall<T>> newAdapter(TypeAdapter<T> adapter) {
+        return new CallAdapter<ResponseBody, StreamingMapCall<T>>() {
+            @NonNull
+            @Override
+            public Type responseType() {
+                return ResponseBody.class;
+            }
+
+            @NonNull
+            @Override
+            public StreamingMapCall<T> adapt(@NonNull Call<ResponseBody> call) {
+                return new StreamingMapCall<>(call, gson, adapter);
+            }
+        };
+    }
+}
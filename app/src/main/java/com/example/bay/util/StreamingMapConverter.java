@@ -0,0 +1,92 @@
+package com.example.bay.util;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+/**
+ * Reads a Firebase collection ({@code {"key": {...}, ...}}) one entry at a time with a
+ * {@link JsonReader}, so only entries accepted by the {@link StreamFilter} are kept in memory.
+ */
+public class StreamingMapConverter<T> implements Converter<ResponseBody, Map<String, T>> {
+
+    private final Gson gson;
+    private final TypeAdapter<T> adapter;
+    private final StreamFilter<T> filter;
+
+    public StreamingMapConverter(Gson gson, TypeAdapter<T> adapter, StreamFilter<T> filter) {
+        this.gson = gson;
+        this.adapter = adapter;
+        this.filter = filter;
+    }
+
+    @Override
+    public Map<String, T> convert(@NonNull ResponseBody body) throws IOException {
+        try (JsonReader reader = gson.newJsonReader(body.charStream())) {
+            if (reader.peek() == JsonToken.NULL) {
+                return new LinkedHashMap<>();
+            }
+            return filter.order == null ? readFirst(reader) : readTop(reader);
+        } finally {
+            body.close();
+        }
+    }
+
+    private Map<String, T> readFirst(JsonReader reader) throws IOException {
+        Map<String, T> result = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext() && result.size() < filter.limit) {
+            String key = reader.nextName();
+            T value = adapter.read(reader);
+            if (filter.accepts(value)) {
+                result.put(key, value);
+            }
+        }
+        // Stop here once the limit is reached; closing the body drops the rest of the payload.
+        return result;
+    }
+
+    private Map<String, T> readTop(JsonReader reader) throws IOException {
+        // Heap head is the worst entry kept so far, so it is the one evicted
+        PriorityQueue<Map.Entry<String, T>> heap = new PriorityQueue<>(
+                Math.min(filter.limit, 64) + 1,
+                (a, b) -> filter.order.compare(b.getValue(), a.getValue()));
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            T value = adapter.read(reader);
+            if (!filter.accepts(value)) continue;
+
+            heap.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+            if (heap.size() > filter.limit) {
+                heap.poll();
+            }
+        }
+        reader.endObject();
+
+        List<Map.Entry<String, T>> sorted = new ArrayList<>(heap);
+        Collections.sort(sorted, (a, b) -> filter.order.compare(a.getValue(), b.getValue()));
+
+        Map<String, T> result = new LinkedHashMap<>();
+        for (Map.Entry<String, T> entry : sorted) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
@@ -1,27 +1,35 @@
 package com.example.bay.viewmodel;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.bay.model.Chat;
-import com.example.bay.model.Message;
 import com.example.bay.model.User;
 import com.example.bay.repository.ChatRepository;
+import com.example.bay.repository.UserProfileCache;
 import com.example.bay.repository.UserRepository;
 import com.example.bay.util.FirebaseDBHelper;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class MessageViewModel extends ViewModel {
 
     private MutableLiveData<List<Chat>> chats = new MutableLiveData<>();
     private MutableLiveData<List<User>> allUsers = new MutableLiveData<>();
-    private MutableLiveData<List<Message>> allMessages = new MutableLiveData<>();
+    private MutableLiveData<Set<String>> chatPartnerIds = new MutableLiveData<>();
     private MutableLiveData<User> currentUser = new MutableLiveData<>();
     private MutableLiveData<String> error = new MutableLiveData<>();
 
@@ -29,17 +37,22 @@ public class MessageViewModel extends ViewModel {
     private ChatRepository chatRepository = new ChatRepository();
     private UserRepository userRepository = new UserRepository();
 
-    private ValueEventListener chatsListener;
-    private ValueEventListener usersListener;
-    private ValueEventListener messagesListener;
+    private ChildEventListener chatsListener;
+    private final Map<String, Chat> inbox = new HashMap<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean publishPending;
+    private ValueEventListener chatPartnersListener;
     private ValueEventListener currentUserListener;
+    // Names and avatars come from the profile cache; presence is live, from online-status/{partnerId}
+    private Map<String, User> partnerProfiles = new HashMap<>();
+    private final Map<String, Boolean> partnerOnline = new HashMap<>();
+    private final Map<String, ValueEventListener> presenceListeners = new HashMap<>();
 
     public void setCurrentUserId(String userId) {
         this.currentUserId = userId;
         loadCurrentUser();
         loadChats();
-        loadAllUsers();
-        loadAllMessages();
+        loadChatPartners();
     }
 
     private void loadCurrentUser() {
@@ -61,78 +74,88 @@ public class MessageViewModel extends ViewModel {
         FirebaseDBHelper.getUserRef(currentUserId).addValueEventListener(currentUserListener);
     }
 
+    // One child listener on user-chats/{uid}; each entry already carries what the row shows
     private void loadChats() {
-        chatsListener = new ValueEventListener() {
+        chatRepository.backfillInboxIfNeeded(currentUserId);
+
+        chatsListener = new ChildEventListener() {
             @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<String> chatIds = new ArrayList<>();
-                for (DataSnapshot chatIdSnapshot : snapshot.getChildren()) {
-                    String chatId = chatIdSnapshot.getKey();
-                    chatIds.add(chatId);
-                }
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                putInboxEntry(snapshot);
+            }
 
-                if (chatIds.isEmpty()) {
-                    chats.setValue(new ArrayList<>());
-                    return;
-                }
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                putInboxEntry(snapshot);
+            }
 
-                loadChatDetails(chatIds);
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                inbox.remove(snapshot.getKey());
+                publishChats();
             }
 
             @Override
-            public void onCancelled(DatabaseError error) {
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                error.setValue(databaseError.getMessage());
             }
         };
 
-        FirebaseDBHelper.getUserChatsRef(currentUserId).addValueEventListener(chatsListener);
+        FirebaseDBHelper.getUserChatsRef(currentUserId).addChildEventListener(chatsListener);
+
+        // Fires after the initial children (served from the same synced data) so an empty inbox still publishes
+        FirebaseDBHelper.getUserChatsRef(currentUserId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                publishChats();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+            }
+        });
     }
 
-    private void loadChatDetails(List<String> chatIds) {
-        List<Chat> loadedChats = new ArrayList<>();
-        final int[] loadedCount = {0};
-
-        for (String chatId : chatIds) {
-            FirebaseDBHelper.getChatRef(chatId).addListenerForSingleValueEvent(
-                    new ValueEventListener() {
-                        @Override
-                        public void onDataChange(DataSnapshot snapshot) {
-                            Chat chat = snapshot.getValue(Chat.class);
-                            if (chat != null) {
-                                chat.setChatId(snapshot.getKey());
-                                loadedChats.add(chat);
-                            }
-
-                            loadedCount[0]++;
-                            if (loadedCount[0] == chatIds.size()) {
-                                loadedChats.sort((c1, c2) -> Long.compare(c2.getLastMessageTime(), c1.getLastMessageTime()));
-                                chats.setValue(loadedChats);
-                            }
-                        }
-
-                        @Override
-                        public void onCancelled(DatabaseError error) {
-                            loadedCount[0]++;
-                            if (loadedCount[0] == chatIds.size()) {
-                                chats.setValue(loadedChats);
-                            }
-                        }
-                    });
+    private void putInboxEntry(DataSnapshot snapshot) {
+        Chat chat = ChatRepository.toInboxChat(snapshot);
+        if (chat != null) {
+            inbox.put(chat.getChatId(), chat);
+        } else {
+            inbox.remove(snapshot.getKey());
         }
+        publishChats();
     }
 
-    private void loadAllUsers() {
-        usersListener = new ValueEventListener() {
+    // The initial children arrive in one burst; sort and publish once per main-loop turn
+    private void publishChats() {
+        if (publishPending) return;
+        publishPending = true;
+        mainHandler.post(() -> {
+            publishPending = false;
+            List<Chat> sorted = new ArrayList<>(inbox.values());
+            sorted.sort((c1, c2) -> Long.compare(c2.getLastMessageTime(), c1.getLastMessageTime()));
+            chats.setValue(sorted);
+        });
+    }
+
+    // Only this user's partner ids, not the global messages node
+    private void loadChatPartners() {
+        chatRepository.backfillChatPartnersIfNeeded(currentUserId);
+
+        chatPartnersListener = new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot snapshot) {
-                List<User> users = new ArrayList<>();
-                for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                    User user = userSnapshot.getValue(User.class);
-                    if (user != null) {
-                        user.setUserId(userSnapshot.getKey());
-                        users.add(user);
-                    }
+                Set<String> partnerIds = new HashSet<>();
+                for (DataSnapshot partnerSnapshot : snapshot.getChildren()) {
+                    partnerIds.add(partnerSnapshot.getKey());
                 }
-                allUsers.setValue(users);
+                chatPartnerIds.setValue(partnerIds);
+                watchPresence(partnerIds);
+                loadPartnerProfiles(partnerIds);
             }
 
             @Override
@@ -140,30 +163,62 @@ public class MessageViewModel extends ViewModel {
             }
         };
 
-        FirebaseDBHelper.getUsersRef().addValueEventListener(usersListener);
+        FirebaseDBHelper.getChatPartnersRef(currentUserId).addValueEventListener(chatPartnersListener);
     }
 
-    private void loadAllMessages() {
-        messagesListener = new ValueEventListener() {
+    // The online row only shows chat partners, so only their profiles are needed, from the shared cache
+    private void loadPartnerProfiles(Set<String> partnerIds) {
+        UserProfileCache.getInstance().getUsers(partnerIds, new UserRepository.UserCallback<Map<String, User>>() {
             @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Message> messages = new ArrayList<>();
-                for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
-                    Message message = messageSnapshot.getValue(Message.class);
-                    if (message != null) {
-                        message.setMessageId(messageSnapshot.getKey());
-                        messages.add(message);
-                    }
-                }
-                allMessages.setValue(messages);
+            public void onSuccess(Map<String, User> profiles) {
+                partnerProfiles = profiles;
+                publishPartners();
             }
 
             @Override
-            public void onCancelled(DatabaseError error) {
+            public void onError(String errorMsg) {
+                error.setValue(errorMsg);
             }
-        };
+        });
+    }
+
+    // One listener per partner on online-status/{partnerId}, added and removed as partners change
+    private void watchPresence(Set<String> partnerIds) {
+        for (String partnerId : new ArrayList<>(presenceListeners.keySet())) {
+            if (!partnerIds.contains(partnerId)) {
+                FirebaseDBHelper.getOnlineStatusRef(partnerId).removeEventListener(presenceListeners.remove(partnerId));
+                partnerOnline.remove(partnerId);
+            }
+        }
 
-        FirebaseDBHelper.getMessagesRef().addValueEventListener(messagesListener);
+        for (String partnerId : partnerIds) {
+            if (presenceListeners.containsKey(partnerId)) continue;
+
+            ValueEventListener listener = new ValueEventListener() {
+                @Override
+                public void onDataChange(DataSnapshot snapshot) {
+                    partnerOnline.put(partnerId, Boolean.TRUE.equals(snapshot.getValue(Boolean.class)));
+                    publishPartners();
+                }
+
+                @Override
+                public void onCancelled(DatabaseError error) {
+                }
+            };
+            presenceListeners.put(partnerId, listener);
+            FirebaseDBHelper.getOnlineStatusRef(partnerId).addValueEventListener(listener);
+        }
+    }
+
+    private void publishPartners() {
+        List<User> users = new ArrayList<>();
+        for (Map.Entry<String, User> entry : partnerProfiles.entrySet()) {
+            User user = entry.getValue();
+            user.setUserId(entry.getKey());
+            user.setOnline(Boolean.TRUE.equals(partnerOnline.get(entry.getKey())));
+            users.add(user);
+        }
+        allUsers.setValue(users);
     }
 
     public LiveData<List<Chat>> getChats() {
@@ -174,8 +229,8 @@ public class MessageViewModel extends ViewModel {
         return allUsers;
     }
 
-    public LiveData<List<Message>> getAllMessages() {
-        return allMessages;
+    public LiveData<Set<String>> getChatPartnerIds() {
+        return chatPartnerIds;
     }
 
     public LiveData<User> getCurrentUser() {
@@ -189,17 +244,19 @@ public class MessageViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
+        mainHandler.removeCallbacksAndMessages(null);
         if (chatsListener != null && currentUserId != null) {
             FirebaseDBHelper.getUserChatsRef(currentUserId).removeEventListener(chatsListener);
         }
-        if (usersListener != null) {
-            FirebaseDBHelper.getUsersRef().removeEventListener(usersListener);
-        }
-        if (messagesListener != null) {
-            FirebaseDBHelper.getMessagesRef().removeEventListener(messagesListener);
+        if (chatPartnersListener != null && currentUserId != null) {
+            FirebaseDBHelper.getChatPartnersRef(currentUserId).removeEventListener(chatPartnersListener);
         }
         if (currentUserListener != null) {
             FirebaseDBHelper.getUserRef(currentUserId).removeEventListener(currentUserListener);
         }
+        for (Map.Entry<String, ValueEventListener> entry : presenceListeners.entrySet()) {
+            FirebaseDBHelper.getOnlineStatusRef(entry.getKey()).removeEventListener(entry.getValue());
+        }
+        presenceListeners.clear();
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.example.bay.viewmodel;
 
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.lifecycle.LiveData;
@@ -9,75 +11,162 @@ import androidx.lifecycle.ViewModel;
 import com.example.bay.model.Notification;
 import com.example.bay.repository.NotificationRepository;
 import com.example.bay.util.FirebaseDBHelper;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class NotificationViewModel extends ViewModel {
 
+    private static final int PAGE_SIZE = 20;
+
     private MutableLiveData<List<Notification>> notifications = new MutableLiveData<>();
     private MutableLiveData<Integer> unreadCount = new MutableLiveData<>();
+    private MutableLiveData<Boolean> hasMoreNotifications = new MutableLiveData<>(false);
     private MutableLiveData<String> error = new MutableLiveData<>();
 
     private String currentUserId;
     private NotificationRepository notificationRepository = new NotificationRepository();
 
-    private ValueEventListener notificationsListener;
+    // Newest `limit` notifications; loading more widens the window instead of re-reading pages
+    private int limit = PAGE_SIZE;
+    private Query notificationsQuery;
+    private ChildEventListener notificationsListener;
+    private final Map<String, Notification> loaded = new HashMap<>();
+    private final Set<String> snapshotChecked = new HashSet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean publishPending;
+    private boolean loadingMore;
+
     private ValueEventListener unreadCountListener;
 
     public void setCurrentUserId(String userId) {
+        if (userId == null || userId.equals(currentUserId)) return;
+
+        detachListeners();
         this.currentUserId = userId;
+        limit = PAGE_SIZE;
+        loaded.clear();
+        snapshotChecked.clear();
+
+        notificationRepository.backfillUnreadCountIfNeeded(userId);
         loadNotifications();
         loadUnreadCount();
     }
 
-    public void loadNotifications() {
-        if (notificationsListener != null && currentUserId != null) {
-            FirebaseDBHelper.getUserNotificationsRef(currentUserId)
-                    .removeEventListener(notificationsListener);
+    private void loadNotifications() {
+        if (notificationsQuery != null && notificationsListener != null) {
+            notificationsQuery.removeEventListener(notificationsListener);
         }
 
-        notificationsListener = new ValueEventListener() {
+        notificationsListener = new ChildEventListener() {
             @Override
-            public void onDataChange(DataSnapshot snapshot) {
-                List<Notification> notifList = new ArrayList<>();
-                for (DataSnapshot notifSnapshot : snapshot.getChildren()) {
-                    Notification notification = notifSnapshot.getValue(Notification.class);
-                    if (notification != null) {
-                        notification.setNotificationId(notifSnapshot.getKey());
-                        notifList.add(0, notification); // Reverse chronological order
-                    }
-                }
-                notifications.setValue(notifList);
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                putNotification(snapshot);
             }
 
             @Override
-            public void onCancelled(DatabaseError error) {
-                Log.d("NotificationViewModel", "onCancelled: " + error.getMessage());
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                putNotification(snapshot);
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                // Deleted, or pushed out of the window by a newer one
+                loaded.remove(snapshot.getKey());
+                publishNotifications();
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                Log.d("NotificationViewModel", "onCancelled: " + databaseError.getMessage());
             }
         };
 
-        FirebaseDBHelper.getUserNotificationsRef(currentUserId)
+        int requested = limit;
+        notificationsQuery = FirebaseDBHelper.getUserNotificationsRef(currentUserId)
                 .orderByChild("timestamp")
-                .addValueEventListener(notificationsListener);
+                .limitToLast(requested);
+        notificationsQuery.addChildEventListener(notificationsListener);
+
+        // Fires after the window's initial children, so an empty list still publishes
+        notificationsQuery.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                loadingMore = false;
+                hasMoreNotifications.setValue(snapshot.getChildrenCount() >= requested);
+                publishNotifications();
+                refreshSenderSnapshots();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError databaseError) {
+                loadingMore = false;
+            }
+        });
     }
 
-    private void loadUnreadCount() {
-        if (unreadCountListener != null && currentUserId != null) {
-            FirebaseDBHelper.getUserNotificationsRef(currentUserId)
-                    .orderByChild("read")
-                    .equalTo(false)
-                    .removeEventListener(unreadCountListener);
+    public void loadMoreNotifications() {
+        if (currentUserId == null || loadingMore || !Boolean.TRUE.equals(hasMoreNotifications.getValue())) {
+            return;
         }
+        loadingMore = true;
+        limit += PAGE_SIZE;
+        loadNotifications();
+    }
 
+    private void putNotification(DataSnapshot snapshot) {
+        Notification notification = snapshot.getValue(Notification.class);
+        if (notification != null) {
+            notification.setNotificationId(snapshot.getKey());
+            loaded.put(snapshot.getKey(), notification);
+        } else {
+            loaded.remove(snapshot.getKey());
+        }
+        publishNotifications();
+    }
+
+    // Each loaded notification is checked once per ViewModel; the refresh itself happens in the background
+    private void refreshSenderSnapshots() {
+        List<Notification> unchecked = new ArrayList<>();
+        for (Notification notification : loaded.values()) {
+            if (snapshotChecked.add(notification.getNotificationId())) {
+                unchecked.add(notification);
+            }
+        }
+        notificationRepository.refreshStaleSenderSnapshots(currentUserId, unchecked);
+    }
+
+    // The initial children arrive in one burst; sort and publish once per main-loop turn
+    private void publishNotifications() {
+        if (publishPending) return;
+        publishPending = true;
+        mainHandler.post(() -> {
+            publishPending = false;
+            List<Notification> sorted = new ArrayList<>(loaded.values());
+            sorted.sort((n1, n2) -> Long.compare(n2.getTimestamp(), n1.getTimestamp()));
+            notifications.setValue(sorted);
+        });
+    }
+
+    // The badge is one maintained integer, not a query over the notifications
+    private void loadUnreadCount() {
         unreadCountListener = new ValueEventListener() {
             @Override
             public void onDataChange(DataSnapshot snapshot) {
-                int count = (int) snapshot.getChildrenCount();
-                unreadCount.setValue(count);
+                unreadCount.setValue(NotificationRepository.toUnreadCount(snapshot));
             }
 
             @Override
@@ -86,12 +175,23 @@ public class NotificationViewModel extends ViewModel {
             }
         };
 
-        FirebaseDBHelper.getUserNotificationsRef(currentUserId)
-                .orderByChild("read")
-                .equalTo(false)
+        FirebaseDBHelper.getNotificationUnreadCountRef(currentUserId)
                 .addValueEventListener(unreadCountListener);
     }
 
+    private void detachListeners() {
+        if (notificationsQuery != null && notificationsListener != null) {
+            notificationsQuery.removeEventListener(notificationsListener);
+        }
+        if (unreadCountListener != null && currentUserId != null) {
+            FirebaseDBHelper.getNotificationUnreadCountRef(currentUserId)
+                    .removeEventListener(unreadCountListener);
+        }
+        notificationsQuery = null;
+        notificationsListener = null;
+        unreadCountListener = null;
+    }
+
     public void markNotificationAsRead(String notificationId) {
         notificationRepository.markNotificationAsRead(currentUserId, notificationId,
                 new NotificationRepository.NotificationCallback<Boolean>() {
@@ -160,6 +260,10 @@ public class NotificationViewModel extends ViewModel {
         return unreadCount;
     }
 
+    public LiveData<Boolean> getHasMoreNotifications() {
+        return hasMoreNotifications;
+    }
+
     public LiveData<String> getError() {
         return error;
     }
@@ -167,13 +271,7 @@ public class NotificationViewModel extends ViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        if (notificationsListener != null && currentUserId != null) {
-            FirebaseDBHelper.getUserNotificationsRef(currentUserId)
-                    .removeEventListener(notificationsListener);
-        }
-        if (unreadCountListener != null && currentUserId != null) {
-            FirebaseDBHelper.getUserNotificationsRef(currentUserId)
-                    .removeEventListener(unreadCountListener);
-        }
+        detachListeners();
+        mainHandler.removeCallbacksAndMessages(null);
     }
 }
\ No newline at end of file
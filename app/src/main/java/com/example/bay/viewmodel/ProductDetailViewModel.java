@@ -6,6 +6,7 @@ import androidx.lifecycle.ViewModel;
 import android.util.Log;
 
 import com.example.bay.model.Review;
+import com.example.bay.model.ReviewStats;
 import com.example.bay.model.ShoppingItem;
 import com.example.bay.model.User;
 import com.example.bay.repository.ProductDetailRepository;
@@ -17,6 +18,7 @@ import java.util.*;
 
 public class ProductDetailViewModel extends ViewModel {
     private static final String TAG = "ProductDetailViewModel";
+    private static final int REVIEW_PAGE_SIZE = 10;
 
     private final ProductDetailRepository productDetailRepository;
     private final ReviewRepository reviewRepository;
@@ -34,8 +36,13 @@ public class ProductDetailViewModel extends ViewModel {
     private final SingleLiveEvent<String> successMessage = new SingleLiveEvent<>();
     private final MutableLiveData<Boolean> hasUserReviewed = new MutableLiveData<>(false);
     private final MutableLiveData<Boolean> isProductOwner = new MutableLiveData<>(false);
+    private final MutableLiveData<Boolean> hasMoreReviews = new MutableLiveData<>(false);
 
     private String currentItemId;
+    // Paging state for allReviews
+    private Review lastLoadedReview;
+    private boolean isLoadingMoreReviews;
+    private int reviewPageGeneration;
     private String currentUserId;
 
     public ProductDetailViewModel() {
@@ -135,7 +142,7 @@ public class ProductDetailViewModel extends ViewModel {
         });
     }
 
-    // Load ALL reviews (for DetailReviewAllFragment)
+    // Load the first page of reviews (for DetailReviewAllFragment); more pages come from loadMoreReviews()
     public void loadAllReviews(String itemId) {
         Log.d(TAG, "loadAllReviews called for item: " + itemId);
 
@@ -147,15 +154,17 @@ public class ProductDetailViewModel extends ViewModel {
         currentItemId = itemId;
         isLoading.setValue(true);
 
-        // Load ALL reviews
-        reviewRepository.getAllReviews(itemId, new ReviewRepository.ReviewCallback<List<Review>>() {
-            @Override
-            public void onSuccess(List<Review> allReviewList) {
-                Log.d(TAG, "Loaded " + allReviewList.size() + " all reviews");
-                allReviews.setValue(allReviewList);
+        // A reload drops whatever page is still in flight
+        int generation = ++reviewPageGeneration;
+        lastLoadedReview = null;
+        isLoadingMoreReviews = true;
 
-                // Load user info for these reviews
-                loadUsersForReviews(allReviewList);
+        reviewRepository.getReviewsPage(itemId, null, REVIEW_PAGE_SIZE, new ReviewRepository.ReviewCallback<ReviewRepository.ReviewPage>() {
+            @Override
+            public void onSuccess(ReviewRepository.ReviewPage page) {
+                if (generation != reviewPageGeneration) return;
+                Log.d(TAG, "Loaded first page of " + page.getReviews().size() + " reviews");
+                applyReviewPage(page, new ArrayList<>());
 
                 // Check if current user has reviewed (only if not owner and logged in)
                 Boolean isOwner = isProductOwner.getValue();
@@ -172,6 +181,9 @@ public class ProductDetailViewModel extends ViewModel {
 
             @Override
             public void onError(String errorMsg) {
+                if (generation != reviewPageGeneration) return;
+                isLoadingMoreReviews = false;
+                hasMoreReviews.setValue(false);
                 allReviews.setValue(new ArrayList<>());
                 errorMessage.setValue("មិនអាចទាញយកមតិបាន");
                 isLoading.setValue(false);
@@ -180,12 +192,55 @@ public class ProductDetailViewModel extends ViewModel {
         });
     }
 
-    // Load users for reviews
+    // Load the next page of reviews after the ones already shown
+    public void loadMoreReviews() {
+        Boolean hasMore = hasMoreReviews.getValue();
+        if (currentItemId == null || isLoadingMoreReviews || hasMore == null || !hasMore) {
+            return;
+        }
+
+        int generation = reviewPageGeneration;
+        isLoadingMoreReviews = true;
+
+        reviewRepository.getReviewsPage(currentItemId, lastLoadedReview, REVIEW_PAGE_SIZE, new ReviewRepository.ReviewCallback<ReviewRepository.ReviewPage>() {
+            @Override
+            public void onSuccess(ReviewRepository.ReviewPage page) {
+                if (generation != reviewPageGeneration) return;
+                Log.d(TAG, "Loaded " + page.getReviews().size() + " more reviews");
+                List<Review> current = allReviews.getValue();
+                applyReviewPage(page, current != null ? new ArrayList<>(current) : new ArrayList<>());
+            }
+
+            @Override
+            public void onError(String errorMsg) {
+                if (generation != reviewPageGeneration) return;
+                isLoadingMoreReviews = false;
+                Log.e(TAG, "Error loading more reviews: " + errorMsg);
+            }
+        });
+    }
+
+    private void applyReviewPage(ReviewRepository.ReviewPage page, List<Review> shown) {
+        shown.addAll(page.getReviews());
+        if (page.getLastReview() != null) {
+            lastLoadedReview = page.getLastReview();
+        }
+        isLoadingMoreReviews = false;
+        hasMoreReviews.setValue(page.hasMore());
+        allReviews.setValue(shown);
+
+        // Only the reviewers on this page
+        loadUsersForReviews(page.getReviews());
+    }
+
+    // Load users for reviews, adding them to the ones already loaded
     private void loadUsersForReviews(List<Review> reviewList) {
+        Map<String, User> known = reviewUsers.getValue();
         List<String> userIds = new ArrayList<>();
         for (Review review : reviewList) {
-            if (review.getUserId() != null && !userIds.contains(review.getUserId())) {
-                userIds.add(review.getUserId());
+            String userId = review.getUserId();
+            if (userId != null && !userIds.contains(userId) && (known == null || !known.containsKey(userId))) {
+                userIds.add(userId);
             }
         }
 
@@ -193,17 +248,19 @@ public class ProductDetailViewModel extends ViewModel {
             productDetailRepository.getUsersByIds(userIds, new ProductDetailRepository.UsersMapCallback() {
                 @Override
                 public void onSuccess(Map<String, User> usersMap) {
-                    reviewUsers.setValue(usersMap);
+                    Map<String, User> merged = reviewUsers.getValue() != null
+                            ? new HashMap<>(reviewUsers.getValue()) : new HashMap<>();
+                    merged.putAll(usersMap);
+                    reviewUsers.setValue(merged);
                     Log.d(TAG, "Loaded " + usersMap.size() + " users for reviews");
                 }
 
                 @Override
                 public void onError(String errorMsg) {
-                    reviewUsers.setValue(new HashMap<>());
                     Log.e(TAG, "Error loading users: " + errorMsg);
                 }
             });
-        } else {
+        } else if (known == null) {
             reviewUsers.setValue(new HashMap<>());
         }
     }
@@ -239,11 +296,11 @@ public class ProductDetailViewModel extends ViewModel {
             return;
         }
 
-        reviewRepository.getProductStats(currentItemId, new ReviewRepository.ReviewCallback<Map<String, Object>>() {
+        reviewRepository.getProductStats(currentItemId, new ReviewRepository.ReviewCallback<ReviewStats>() {
             @Override
-            public void onSuccess(Map<String, Object> stats) {
-                float rating = stats.get("rating") != null ? (float) stats.get("rating") : 0.0f;
-                int count = stats.get("review_count") != null ? (int) stats.get("review_count") : 0;
+            public void onSuccess(ReviewStats stats) {
+                float rating = stats.getAverage();
+                int count = (int) stats.getCount();
 
                 productRating.setValue(rating);
                 productReviewCount.setValue(count);
@@ -320,6 +377,7 @@ public class ProductDetailViewModel extends ViewModel {
     public LiveData<List<Review>> getLatestReviews() { return latestReviews; }
     public LiveData<List<Review>> getAllReviews() { return allReviews; }
     public LiveData<Map<String, User>> getReviewUsers() { return reviewUsers; }
+    public LiveData<Boolean> getHasMoreReviews() { return hasMoreReviews; }
     public LiveData<ShoppingItem> getProductItem() { return productItem; }
     public LiveData<Float> getProductRating() { return productRating; }
     public LiveData<Integer> getProductReviewCount() { return productReviewCount; }
@@ -4,6 +4,7 @@ import android.util.Log;
 
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import com.example.bay.model.ShoppingItem;
@@ -43,13 +44,31 @@ public class ShoppingViewModel extends ViewModel {
         void onError(String error);
     }
 
+    private final LiveData<Map<String, ShoppingItem>> liveItems;
+    private final Observer<Map<String, ShoppingItem>> liveItemsObserver = this::publishItems;
+    private final LiveData<String> syncErrors;
+    private final Observer<String> syncErrorObserver = this::onSyncError;
+
     public ShoppingViewModel() {
         repository = new ShoppingItemRepository();
         userRepository = new UserRepository();
-        loadShoppingItems();
+
+        // Listings render from the disk mirror; a delta sync then fetches only what changed
+        isLoading.setValue(true);
+        liveItems = repository.observeShoppingItems();
+        liveItems.observeForever(liveItemsObserver);
+        syncErrors = repository.observeSyncErrors();
+        syncErrors.observeForever(syncErrorObserver);
         loadUsers();
     }
 
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        liveItems.removeObserver(liveItemsObserver);
+        syncErrors.removeObserver(syncErrorObserver);
+    }
+
     // ✅ DELETE: Delete shopping item
     public void deleteShoppingItem(String itemId, DeleteCallback callback) {
         isLoading.setValue(true);
@@ -116,47 +135,46 @@ public class ShoppingViewModel extends ViewModel {
         });
     }
 
-    // ✅ REFRESH: Refresh all data
+    // ✅ REFRESH: A delta sync picks up the write; only the user's own list is reloaded in full
     private void refreshAllData() {
-        loadShoppingItems();
-        loadUsers();
-
+        repository.syncShoppingItems();
         String currentUserId = getCurrentUserId();
         if (currentUserId != null) {
             loadUserPosts(currentUserId);
         }
     }
 
-    // ✅ LOAD: Load shopping items
+    // ✅ LOAD: Load shopping items (re-publishes the disk mirror and syncs changes since the last run)
     public void loadShoppingItems() {
-        isLoading.setValue(true);
-        errorMessage.setValue("");
+        Map<String, ShoppingItem> current = liveItems.getValue();
+        if (current != null) {
+            publishItems(current);
+        }
+        repository.syncShoppingItemsIfStale();
+    }
 
-        repository.getAllShoppingItems(new ShoppingItemRepository.ShoppingItemCallback<Map<String, ShoppingItem>>() {
-            @Override
-            public void onSuccess(Map<String, ShoppingItem> result) {
-                List<ShoppingItem> items = new ArrayList<>(result.values());
-
-                // Sort by date (newest first)
-                Collections.sort(items, (item1, item2) -> {
-                    Long time1 = item1.getCreatedAt() != null ? item1.getCreatedAt() : 0L;
-                    Long time2 = item2.getCreatedAt() != null ? item2.getCreatedAt() : 0L;
-                    return Long.compare(time2, time1);
-                });
-
-                allItems.setValue(items);
-                applyCurrentFilters();
-                isLoading.setValue(false);
-                Log.d("ShoppingViewModel", "Loaded " + items.size() + " shopping items");
-            }
+    private void publishItems(Map<String, ShoppingItem> result) {
+        List<ShoppingItem> items = new ArrayList<>(result.values());
 
-            @Override
-            public void onError(String errorMsg) {
-                errorMessage.setValue(errorMsg);
-                isLoading.setValue(false);
-                Log.e("ShoppingViewModel", "Error loading items: " + errorMsg);
-            }
+        // Sort by date (newest first)
+        Collections.sort(items, (item1, item2) -> {
+            Long time1 = item1.getCreatedAt() != null ? item1.getCreatedAt() : 0L;
+            Long time2 = item2.getCreatedAt() != null ? item2.getCreatedAt() : 0L;
+            return Long.compare(time2, time1);
         });
+
+        allItems.setValue(items);
+        applyCurrentFilters();
+        isLoading.setValue(false);
+        Log.d("ShoppingViewModel", "Loaded " + items.size() + " shopping items");
+    }
+
+    // A failed sync keeps whatever is already listed, but must not leave the spinner running
+    private void onSyncError(String errorMsg) {
+        if (errorMsg == null) return;
+        isLoading.setValue(false);
+        errorMessage.setValue(errorMsg);
+        Log.e("ShoppingViewModel", "Error syncing shopping items: " + errorMsg);
     }
 
     // ✅ LOAD: Load users
@@ -0,0 +1,145 @@
+package com.example.bay;
+
+import com.example.bay.util.BoundedParallelLoader;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the reviewer profile loading behind ProductDetailRepository.getUsersByIds: one users/{id}
+ * read per requested id through BoundedParallelLoader, whatever the size of the users node, with
+ * at most MAX_PARALLEL reads in flight. Reads go against an in-memory users node.
+ */
+public class BoundedParallelLoaderTest {
+
+    private static final int MAX_PARALLEL = 4;
+    private static final long ROUND_TRIP_MS = 5;
+
+    @Test
+    public void targetedFetch_readsOnlyRequestedUsers() throws Exception {
+        int reviewers = 3;
+
+        for (int total : new int[]{1_000, 10_000, 100_000}) {
+            Map<String, String> usersNode = buildUsers(total);
+            List<String> ids = pickIds(total, reviewers);
+
+            Run targeted = targetedFetch(usersNode, ids);
+
+            Map<String, String> expected = new HashMap<>();
+            for (String id : ids) {
+                expected.put(id, usersNode.get(id));
+            }
+            assertEquals(expected, targeted.result);
+            assertEquals("targeted fetch reads only the reviewers", reviewers, targeted.touched);
+        }
+    }
+
+    @Test
+    public void targetedFetch_growsWithReviewers_andRespectsParallelCap() throws Exception {
+        Map<String, String> usersNode = buildUsers(10_000);
+
+        for (int reviewers : new int[]{1, 4, 16, 64}) {
+            List<String> ids = pickIds(10_000, reviewers);
+            Run targeted = targetedFetch(usersNode, ids);
+
+            assertEquals(reviewers, targeted.touched);
+            assertEquals(reviewers, targeted.result.size());
+            assertTrue("in-flight loads exceeded the cap", targeted.maxInFlight <= MAX_PARALLEL);
+        }
+    }
+
+    @Test
+    public void targetedFetch_skipsMissingAndDuplicateIds() throws Exception {
+        Map<String, String> usersNode = buildUsers(100);
+        List<String> ids = new ArrayList<>();
+        ids.add("user_1");
+        ids.add("user_1");
+        ids.add("user_2");
+        ids.add("deleted_user");
+
+        Run targeted = targetedFetch(usersNode, ids);
+
+        assertEquals(3, targeted.touched);
+        assertEquals(2, targeted.result.size());
+        assertEquals("User 1", targeted.result.get("user_1"));
+    }
+
+    // One users/{id} read per reviewer, at most MAX_PARALLEL at a time.
+    // Each read sleeps for a round trip so that loads overlap and the cap is exercised.
+    private static Run targetedFetch(Map<String, String> usersNode, List<String> ids) throws InterruptedException {
+        ExecutorService network = Executors.newCachedThreadPool();
+        AtomicInteger touched = new AtomicInteger();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<Map<String, String>> result = new AtomicReference<>();
+
+        BoundedParallelLoader.<String, String>loadAll(ids, MAX_PARALLEL,
+                (id, sink) -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    network.execute(() -> {
+                        try {
+                            Thread.sleep(ROUND_TRIP_MS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        touched.incrementAndGet();
+                        String value = usersNode.get(id);
+                        inFlight.decrementAndGet();
+                        sink.onLoaded(value);
+                    });
+                },
+                loaded -> {
+                    result.set(loaded);
+                    done.countDown();
+                });
+
+        assertTrue("loader did not complete", done.await(30, TimeUnit.SECONDS));
+        network.shutdownNow();
+        return new Run(result.get(), touched.get(), maxInFlight.get());
+    }
+
+    // ---- fixtures ----
+
+    private static Map<String, String> buildUsers(int count) {
+        Map<String, String> users = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            users.put("user_" + i, "User " + i);
+        }
+        return users;
+    }
+
+    private static List<String> pickIds(int total, int count) {
+        List<String> ids = new ArrayList<>();
+        int step = Math.max(1, total / count);
+        for (int i = 0; i < count; i++) {
+            ids.add("user_" + ((i * step) % total));
+        }
+        return ids;
+    }
+
+    private static final class Run {
+        final Map<String, String> result;
+        final int touched;
+        final int maxInFlight;
+
+        Run(Map<String, String> result, int touched, int maxInFlight) {
+            this.result = result;
+            this.touched = touched;
+            this.maxInFlight = maxInFlight;
+        }
+    }
+}
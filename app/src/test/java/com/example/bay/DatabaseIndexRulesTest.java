@@ -0,0 +1,589 @@
+package com.example.bay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Scans the app sources for Realtime Database queries and checks that every query key is
+ * declared in the ".indexOn" of the node being queried in database.indexes.json. Without the
+ * index the SDK downloads the whole node and filters on the client, and the REST API rejects
+ * the query outright.
+ *
+ * Covered query forms:
+ *  - SDK: ref.orderByChild("key") or orderByChild(CONSTANT) with a String constant in the same
+ *    file. The ref is followed through getReference/child calls, local fields and variables, and
+ *    the static DatabaseReference getters of FirebaseDBHelper.
+ *  - REST: calls to Retrofit methods that take an @Query("orderBy") parameter, against the path
+ *    of their @GET, followed through wrappers that forward one of their own parameters as the
+ *    orderBy value
+ */
+public class DatabaseIndexRulesTest {
+
+    private static final Pattern RULES_TOKEN = Pattern.compile(
+            "\"\\.indexOn\"\\s*:\\s*(\\[[^\\]]*]|\"[^\"]+\")|\"([^\"]+)\"\\s*:\\s*\\{|[{}]");
+    private static final Pattern QUOTED = Pattern.compile("\"([^\"]+)\"");
+
+    private static final Pattern ORDER_BY_CHILD = Pattern.compile("\\.orderByChild\\(\\s*([^)]*?)\\s*\\)");
+    private static final Pattern STRING_CONSTANT =
+            Pattern.compile("static\\s+final\\s+String\\s+([A-Z][A-Z0-9_]*)\\s*=\\s*(\"(?:[^\"\\\\]|\\\\.)*\")\\s*;");
+    private static final Pattern REF_GETTER = Pattern.compile(
+            "static\\s+DatabaseReference\\s+(\\w+)\\s*\\([^)]*\\)\\s*\\{\\s*return\\s+([^;]+);");
+    private static final String REST_ORDER_BY = "@Query(\"orderBy\")";
+    private static final Pattern REST_GET = Pattern.compile("@GET\\(\"([^\"]*)\"\\)");
+    private static final Pattern METHOD_DECLARATION =
+            Pattern.compile("(\\w+)\\s*\\(([^()]*)\\)\\s*(?:throws[^{;]*)?\\{");
+    private static final Pattern QUOTE_CALL = Pattern.compile("(?:\\w+\\.)?quote\\(\\s*\"([^\"]+)\"\\s*\\)");
+
+    // Stands for a path segment that is only known at runtime, e.g. child(chatId)
+    private static final String ANY = "*";
+    private static final int MAX_REF_DEPTH = 8;
+
+    private File sourceRoot;
+    private File indexFile;
+
+    @Before
+    public void locateFiles() {
+        // Gradle runs unit tests from the module directory; the IDE may use the project root
+        File moduleDir = new File("src/main/java").isDirectory() ? new File(".") : new File("app");
+        sourceRoot = new File(moduleDir, "src/main/java");
+        indexFile = moduleDir.getAbsoluteFile().toPath().normalize().resolveSibling("database.indexes.json").toFile();
+        assertTrue("Source root not found: " + sourceRoot.getAbsolutePath(), sourceRoot.isDirectory());
+        assertTrue("Index file not found: " + indexFile.getAbsolutePath(), indexFile.isFile());
+    }
+
+    @Test
+    public void everyQueryKey_isIndexed() throws IOException {
+        Map<String, Set<String>> indexed = readIndexedKeys(read(indexFile));
+        assertFalse("database.indexes.json declares no .indexOn", indexed.isEmpty());
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        collectSources(sourceRoot, sources);
+
+        // queried node path -> key -> files
+        Map<String, Map<String, List<String>>> usages = new TreeMap<>();
+        List<String> unresolved = new ArrayList<>();
+        collectSdkKeys(sources, usages, unresolved);
+        collectRestKeys(sources, usages, unresolved);
+
+        assertFalse("No orderByChild/orderBy queries found; is the scanner still matching?", usages.isEmpty());
+
+        List<String> problems = new ArrayList<>(unresolved);
+        for (Map.Entry<String, Map<String, List<String>>> node : usages.entrySet()) {
+            for (Map.Entry<String, List<String>> key : node.getValue().entrySet()) {
+                if (!isIndexed(indexed, node.getKey(), key.getKey())) {
+                    problems.add("\"" + key.getKey() + "\" has no .indexOn at " + node.getKey()
+                            + " (used in " + key.getValue() + ")");
+                }
+            }
+        }
+        if (!problems.isEmpty()) {
+            fail("Unindexed database queries:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    @Test
+    public void indexOn_onlyCoversItsOwnNode() {
+        Map<String, Set<String>> indexed = readIndexedKeys("{\"rules\": {"
+                + "\"reviews\": {\".indexOn\": [\"itemId\"]},"
+                + "\"messages\": {\"$chatId\": {\".indexOn\": \"timestamp\"}}}}");
+
+        assertTrue(isIndexed(indexed, "reviews", "itemId"));
+        assertTrue(isIndexed(indexed, "messages/*", "timestamp"));
+        assertFalse(isIndexed(indexed, "shoppingItems", "itemId"));
+        assertFalse(isIndexed(indexed, "messages", "timestamp"));
+    }
+
+    // Rules node path (with $wildcards) -> keys of its .indexOn
+    private static Map<String, Set<String>> readIndexedKeys(String rules) {
+        Map<String, Set<String>> indexed = new HashMap<>();
+        ArrayDeque<String> path = new ArrayDeque<>();
+        Matcher token = RULES_TOKEN.matcher(rules);
+        while (token.find()) {
+            if (token.group(1) != null) {
+                Set<String> keys = new TreeSet<>();
+                Matcher quoted = QUOTED.matcher(token.group(1));
+                while (quoted.find()) {
+                    keys.add(quoted.group(1));
+                }
+                indexed.computeIfAbsent(nodePath(path), unused -> new TreeSet<>()).addAll(keys);
+            } else if (token.group(2) != null) {
+                path.addLast(token.group(2));
+            } else if (token.group().equals("{")) {
+                path.addLast("");
+            } else if (!path.isEmpty()) {
+                path.removeLast();
+            }
+        }
+        return indexed;
+    }
+
+    // Drops the outer object and "rules" from the stack of open objects
+    private static String nodePath(ArrayDeque<String> stack) {
+        List<String> segments = new ArrayList<>(stack);
+        return String.join("/", segments.subList(Math.min(2, segments.size()), segments.size()));
+    }
+
+    private static boolean isIndexed(Map<String, Set<String>> indexed, String path, String key) {
+        String[] segments = path.split("/");
+        for (Map.Entry<String, Set<String>> node : indexed.entrySet()) {
+            if (node.getValue().contains(key) && matchesRulesPath(node.getKey().split("/"), segments)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesRulesPath(String[] rules, String[] path) {
+        if (rules.length != path.length) return false;
+        for (int i = 0; i < rules.length; i++) {
+            if (!rules[i].startsWith("$") && !rules[i].equals(path[i])) return false;
+        }
+        return true;
+    }
+
+    private static void collectSdkKeys(Map<String, String> sources,
+                                       Map<String, Map<String, List<String>>> usages,
+                                       List<String> unresolved) {
+        Map<String, String> getters = readRefGetters(sources);
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            String text = source.getValue();
+            Map<String, String> constants = readConstants(text);
+            Matcher matcher = ORDER_BY_CHILD.matcher(text);
+            while (matcher.find()) {
+                String key = resolveKey(matcher.group(1), constants);
+                String ref = receiverOf(text, matcher.start());
+                List<String> path = resolveRef(ref, text, matcher.start(), constants, getters, 0);
+                record(source.getKey(), matcher.group(1), path == null ? null : String.join("/", path),
+                        ref, key, usages, unresolved);
+            }
+        }
+    }
+
+    // Static DatabaseReference getters (e.g. FirebaseDBHelper.getChatMessagesRef) -> returned expression
+    private static Map<String, String> readRefGetters(Map<String, String> sources) {
+        Map<String, String> getters = new HashMap<>();
+        for (String text : sources.values()) {
+            Matcher matcher = REF_GETTER.matcher(text);
+            while (matcher.find()) {
+                getters.put(matcher.group(1), matcher.group(2));
+            }
+        }
+        return getters;
+    }
+
+    // The expression a call at `dotAt` is made on, e.g. "FirebaseDBHelper.getChatMessagesRef(chatId)"
+    private static String receiverOf(String text, int dotAt) {
+        int depth = 0;
+        int i = dotAt - 1;
+        for (; i >= 0; i--) {
+            char c = text.charAt(i);
+            if (c == ')' || c == ']') {
+                depth++;
+            } else if (c == '(' || c == '[') {
+                if (depth-- == 0) break;
+            } else if (depth == 0 && (c == ';' || c == '{' || c == '}' || c == ',')) {
+                break;
+            } else if (depth == 0 && c == '=' && "=!<>".indexOf(text.charAt(i - 1)) < 0) {
+                break;
+            }
+        }
+        String receiver = text.substring(i + 1, dotAt).replaceAll("//[^\n]*", "").trim();
+        return receiver.startsWith("return ") ? receiver.substring("return ".length()).trim() : receiver;
+    }
+
+    /**
+     * Follows a ref expression to the database path it points at. Segments only known at runtime
+     * become ANY; returns null when the expression cannot be followed.
+     */
+    private static List<String> resolveRef(String expression, String text, int usedAt,
+                                           Map<String, String> constants, Map<String, String> getters,
+                                           int depth) {
+        if (depth > MAX_REF_DEPTH) return null;
+
+        List<String> path = null;
+        List<String> calls = splitChain(expression);
+        for (int i = 0; i < calls.size(); i++) {
+            String call = calls.get(i);
+            int open = call.indexOf('(');
+            String name = (open < 0 ? call : call.substring(0, open)).trim();
+            String arg = open < 0 ? "" : readBalanced(call, open + 1).trim();
+
+            if (name.equals("getReference")) {
+                path = new ArrayList<>();
+                if (!arg.isEmpty()) {
+                    String literal = resolveLiteral(arg, constants);
+                    if (literal == null) return null;
+                    path.addAll(segmentsOf(literal));
+                }
+            } else if (name.equals("child")) {
+                if (path == null) return null;
+                String literal = resolveLiteral(arg, constants);
+                if (literal == null) {
+                    path.add(ANY);
+                } else {
+                    path.addAll(segmentsOf(literal));
+                }
+            } else if (open >= 0 && getters.containsKey(name)) {
+                path = resolveRef(getters.get(name), "", 0, constants, getters, depth + 1);
+            } else if (open < 0 && i == 0 && name.matches("[a-z]\\w*")) {
+                String assigned = assignmentOf(text, name, usedAt);
+                path = assigned == null ? null
+                        : resolveRef(assigned, text, usedAt, constants, getters, depth + 1);
+            }
+        }
+        return path;
+    }
+
+    // Right-hand side of the assignment to `name` closest before `usedAt`, or the first one after
+    private static String assignmentOf(String text, String name, int usedAt) {
+        Matcher matcher = Pattern.compile("\\b" + name + "\\s*=(?!=)\\s*([^;]+);").matcher(text);
+        String before = null;
+        String after = null;
+        while (matcher.find()) {
+            if (matcher.start() < usedAt) {
+                before = matcher.group(1);
+            } else if (after == null) {
+                after = matcher.group(1);
+            }
+        }
+        return before != null ? before : after;
+    }
+
+    // Splits "a.b(x.y).c()" at the top-level dots: [a, b(x.y), c()]
+    private static List<String> splitChain(String expression) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int from = 0;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '.' && depth == 0) {
+                parts.add(expression.substring(from, i).trim());
+                from = i + 1;
+            }
+        }
+        parts.add(expression.substring(from).trim());
+        return parts;
+    }
+
+    private static String resolveLiteral(String expression, Map<String, String> constants) {
+        String value = expression.trim();
+        String constant = constants.get(value);
+        if (constant != null) {
+            value = constant;
+        }
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        value = value.substring(1, value.length() - 1);
+        return value.contains("\"") ? null : value;
+    }
+
+    private static List<String> segmentsOf(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static void collectRestKeys(Map<String, String> sources,
+                                        Map<String, Map<String, List<String>>> usages,
+                                        List<String> unresolved) {
+        // "method#position of its @Query("orderBy") argument" -> queried path from its @GET
+        Map<String, String> orderByMethods = new HashMap<>();
+        for (String text : sources.values()) {
+            for (int at = text.indexOf(REST_ORDER_BY); at >= 0; at = text.indexOf(REST_ORDER_BY, at + 1)) {
+                int open = findOpeningParenthesis(text, at);
+                int nameEnd = open;
+                while (nameEnd > 0 && Character.isWhitespace(text.charAt(nameEnd - 1))) {
+                    nameEnd--;
+                }
+                int nameStart = nameEnd;
+                while (nameStart > 0 && Character.isJavaIdentifierPart(text.charAt(nameStart - 1))) {
+                    nameStart--;
+                }
+                String path = restPath(text, nameStart);
+                List<String> params = splitArguments(readBalanced(text, open + 1));
+                for (int i = 0; i < params.size(); i++) {
+                    if (params.get(i).contains(REST_ORDER_BY)) {
+                        orderByMethods.put(text.substring(nameStart, nameEnd) + "#" + i, path);
+                    }
+                }
+            }
+        }
+
+        // Wrappers that forward one of their parameters as the orderBy argument are followed
+        // to their own call sites, e.g. query(ORDER_BY_USER_ID, id) -> service.query(orderBy, ...)
+        ArrayDeque<Map.Entry<String, String>> work = new ArrayDeque<>(orderByMethods.entrySet());
+        Set<String> seen = new HashSet<>(orderByMethods.keySet());
+
+        while (!work.isEmpty()) {
+            Map.Entry<String, String> method = work.poll();
+            String methodName = method.getKey().substring(0, method.getKey().indexOf('#'));
+            int position = Integer.parseInt(method.getKey().substring(method.getKey().indexOf('#') + 1));
+            Pattern callPattern = Pattern.compile("\\b" + methodName + "\\(");
+
+            for (Map.Entry<String, String> source : sources.entrySet()) {
+                String text = source.getValue();
+                Map<String, String> constants = readConstants(text);
+                Matcher call = callPattern.matcher(text);
+                while (call.find()) {
+                    if (isDeclaration(text, call.start())) {
+                        continue;
+                    }
+                    List<String> parts = splitArguments(readBalanced(text, call.end()));
+                    if (parts.size() <= position) {
+                        continue;
+                    }
+                    String expression = parts.get(position);
+                    String key = resolveKey(expression, constants);
+                    if (key == null) {
+                        Map.Entry<String, Integer> forwarded = enclosingParameter(text, call.start(), expression);
+                        if (forwarded != null) {
+                            String wrapper = forwarded.getKey() + "#" + forwarded.getValue();
+                            if (seen.add(wrapper)) {
+                                work.add(new AbstractMap.SimpleEntry<>(wrapper, method.getValue()));
+                            }
+                            continue;
+                        }
+                    }
+                    record(source.getKey(), expression, method.getValue(), methodName, key, usages, unresolved);
+                }
+            }
+        }
+    }
+
+    // Database path of the Retrofit method declared at `nameStart`, from the closest @GET above it
+    private static String restPath(String text, int nameStart) {
+        Matcher get = REST_GET.matcher(text.substring(0, nameStart));
+        String url = null;
+        while (get.find()) {
+            url = get.group(1);
+        }
+        if (url == null) return null;
+
+        List<String> segments = new ArrayList<>();
+        for (String segment : segmentsOf(url.replaceFirst("\\.json$", ""))) {
+            segments.add(segment.startsWith("{") ? ANY : segment);
+        }
+        return String.join("/", segments);
+    }
+
+    // True when the identifier at `nameStart` is being declared rather than called
+    private static boolean isDeclaration(String text, int nameStart) {
+        int i = nameStart - 1;
+        while (i >= 0 && Character.isWhitespace(text.charAt(i))) {
+            i--;
+        }
+        if (i < 0) return false;
+        char before = text.charAt(i);
+        if (before == '>' || before == ']') return true;
+        if (!Character.isJavaIdentifierPart(before)) return false;
+
+        int wordEnd = i + 1;
+        while (i >= 0 && Character.isJavaIdentifierPart(text.charAt(i))) {
+            i--;
+        }
+        String word = text.substring(i + 1, wordEnd);
+        return !word.equals("return") && !word.equals("new") && !word.equals("else");
+    }
+
+    // If `expression` names a parameter of the method declared around `position`, returns that
+    // method's name and the parameter's index
+    private static Map.Entry<String, Integer> enclosingParameter(String text, int position, String expression) {
+        String name = expression.trim();
+        if (!name.matches("[a-z][A-Za-z0-9_]*")) return null;
+
+        Matcher declaration = METHOD_DECLARATION.matcher(text.substring(0, position));
+        String methodName = null;
+        String params = null;
+        while (declaration.find()) {
+            if (isDeclaration(text, declaration.start(1))) {
+                methodName = declaration.group(1);
+                params = declaration.group(2);
+            }
+        }
+        if (methodName == null) return null;
+
+        List<String> parts = splitArguments(params);
+        for (int i = 0; i < parts.size(); i++) {
+            String[] tokens = parts.get(i).trim().split("\\s+");
+            if (tokens[tokens.length - 1].equals(name)) {
+                return new AbstractMap.SimpleEntry<>(methodName, i);
+            }
+        }
+        return null;
+    }
+
+    private static void record(String file, String expression, String path, String ref, String key,
+                               Map<String, Map<String, List<String>>> usages, List<String> unresolved) {
+        if (key == null) {
+            unresolved.add(file + ": cannot resolve query key from `" + expression
+                    + "`; use a string literal or a static final String constant");
+            return;
+        }
+        if (key.startsWith("$")) {
+            // $key, $value and $priority need no index
+            return;
+        }
+        if (path == null) {
+            unresolved.add(file + ": cannot resolve the node queried on `" + ref
+                    + "`; build the ref from getReference/child or a FirebaseDBHelper getter");
+            return;
+        }
+        List<String> files = usages.computeIfAbsent(path, unused -> new TreeMap<>())
+                .computeIfAbsent(key, unused -> new ArrayList<>());
+        if (!files.contains(file)) {
+            files.add(file);
+        }
+    }
+
+    private static Map<String, String> readConstants(String text) {
+        Map<String, String> constants = new HashMap<>();
+        Matcher matcher = STRING_CONSTANT.matcher(text);
+        while (matcher.find()) {
+            constants.put(matcher.group(1), matcher.group(2));
+        }
+        return constants;
+    }
+
+    private static String resolveKey(String expression, Map<String, String> constants) {
+        String value = expression.trim();
+        String constant = constants.get(value);
+        if (constant != null) {
+            value = constant;
+        }
+        Matcher quote = QUOTE_CALL.matcher(value);
+        if (quote.matches()) {
+            return quote.group(1);
+        }
+        if (value.length() < 2 || !value.startsWith("\"") || !value.endsWith("\"")) {
+            return null;
+        }
+        // REST keys are JSON strings, so the literal is usually "\"key\""
+        value = value.substring(1, value.length() - 1).replace("\\\"", "");
+        return value.isEmpty() || value.contains("\"") ? null : value;
+    }
+
+    // Index of the unmatched '(' enclosing `from`, i.e. the parameter list of the method declaration
+    private static int findOpeningParenthesis(String text, int from) {
+        int depth = 0;
+        for (int i = from - 1; i >= 0; i--) {
+            char c = text.charAt(i);
+            if (c == ')') {
+                depth++;
+            } else if (c == '(' && depth-- == 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    // Returns the text between the opening parenthesis at `start - 1` and its match
+    private static String readBalanced(String text, int start) {
+        int depth = 1;
+        boolean inString = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return text.substring(start, i);
+            }
+        }
+        return text.substring(start);
+    }
+
+    private static List<String> splitArguments(String args) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int from = 0;
+        for (int i = 0; i < args.length(); i++) {
+            char c = args.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '(' || c == '<' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == '>' || c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(args.substring(from, i).trim());
+                from = i + 1;
+            }
+        }
+        if (from < args.length()) {
+            parts.add(args.substring(from).trim());
+        }
+        return parts;
+    }
+
+    private static void collectSources(File dir, Map<String, String> out) throws IOException {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectSources(child, out);
+            } else if (child.getName().endsWith(".java")) {
+                out.put(child.getName(), read(child));
+            }
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+}